@@ -2,19 +2,31 @@ package config_manager.gui;
 
 import editor.model.TileType;
 
-import javax.imageio.ImageIO;
-import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class MyTableModel extends AbstractTableModel {
+public class MyTableModel extends AbstractTableModel implements ThumbnailCache.Listener {
     private List<TileType> tileTypes;
+    private ThumbnailCache thumbnailCache;
+
+    private static final String IMAGE_DIRECTORY = "configurations" + File.separator + "config1";
+    private static final int TEXTURE_ICON_SIZE = 50;
 
     public MyTableModel(List<TileType> _tileTypes) {
         tileTypes = _tileTypes;
+        Map<Integer, String> textureFileNames = new HashMap<Integer, String>();
+        for (TileType tileType : _tileTypes)
+            textureFileNames.put(tileType.getId(), tileType.getTexture());
+        thumbnailCache = new ThumbnailCache(IMAGE_DIRECTORY, textureFileNames, TEXTURE_ICON_SIZE, this);
+    }
+
+    @Override
+    public void thumbnailsLoaded() {
+        for (int i = 0; i < tileTypes.size(); i++)
+            fireTableCellUpdated(i, 0);
     }
 
     @Override
@@ -46,17 +58,7 @@ public class MyTableModel extends AbstractTableModel {
     public Object getValueAt(int rowIndex, int columnIndex) {
         switch (columnIndex) {
             case 0:
-                BufferedImage bi = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
-//                bi.getGraphics().setXORMode(Color.RED);
-//                bi.getGraphics().setColor(Color.blue);
-//                bi.getGraphics().drawRect(1, 1, 40, 40);
-//                bi.getGraphics().fillRect(1, 1, 40, 40);
-                try {
-                    bi.getGraphics().drawImage(ImageIO.read(new File("configurations" + File.separator + "config1" + File.separator + tileTypes.get(rowIndex).getTexture())), 0, 0, 50, 50, null);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                return new ImageIcon(bi);
+                return thumbnailCache.getThumbnail(tileTypes.get(rowIndex).getId());
             case 1:
                 return tileTypes.get(rowIndex).getId();
             case 2:
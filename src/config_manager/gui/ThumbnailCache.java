@@ -0,0 +1,91 @@
+package config_manager.gui;
+
+import editor.service.TextureAtlas;
+import editor.service.TextureService;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+public class ThumbnailCache {
+    private final String imageDirectory;
+    private final Map<Integer, String> textureFileNames;
+    private final int thumbnailSize;
+    private final Listener listener;
+    private final ImageIcon placeholder;
+    private final Map<String, Long> checkedAt;
+    private Map<String, Long> lastModified;
+    private TextureAtlas atlas;
+    private boolean isLoading;
+
+    private static final long MODIFICATION_CHECK_INTERVAL_IN_MILLIS = 1000;
+
+    public ThumbnailCache(String _imageDirectory, Map<Integer, String> _textureFileNames, int _thumbnailSize, Listener _listener) {
+        imageDirectory = _imageDirectory;
+        textureFileNames = new HashMap<Integer, String>(_textureFileNames);
+        thumbnailSize = _thumbnailSize;
+        listener = _listener;
+        placeholder = new ImageIcon(new BufferedImage(_thumbnailSize, _thumbnailSize, BufferedImage.TYPE_INT_RGB));
+        checkedAt = new HashMap<String, Long>();
+    }
+
+    public ImageIcon getThumbnail(int tileID) {
+        if (atlas == null) {
+            load();
+            return placeholder;
+        }
+        final String fileName = textureFileNames.get(tileID);
+        if (fileName != null && isModified(fileName)) {
+            TextureService.getInstance().invalidate(imageDirectory);
+            load();
+        }
+        return atlas.hasTexture(tileID) ? atlas.getIcon(tileID, thumbnailSize) : placeholder;
+    }
+
+    private boolean isModified(String fileName) {
+        final long now = System.currentTimeMillis();
+        final Long lastCheck = checkedAt.get(fileName);
+        if (lastCheck != null && now - lastCheck < MODIFICATION_CHECK_INTERVAL_IN_MILLIS)
+            return false;
+        checkedAt.put(fileName, now);
+        return new File(imageDirectory, fileName).lastModified() != lastModified.get(fileName);
+    }
+
+    private void load() {
+        if (isLoading)
+            return;
+        isLoading = true;
+        new SwingWorker<TextureAtlas, Void>() {
+            private final Map<String, Long> loadedLastModified = new HashMap<String, Long>();
+
+            @Override
+            protected TextureAtlas doInBackground() {
+                for (String fileName : textureFileNames.values())
+                    loadedLastModified.put(fileName, new File(imageDirectory, fileName).lastModified());
+                return TextureService.getInstance().getAtlas(imageDirectory, textureFileNames);
+            }
+
+            @Override
+            protected void done() {
+                isLoading = false;
+                try {
+                    atlas = get();
+                    lastModified = loadedLastModified;
+                    checkedAt.clear();
+                    listener.thumbnailsLoaded();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("Can't load textures from \"" + imageDirectory + "\": " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    public static interface Listener {
+        public void thumbnailsLoaded();
+    }
+}
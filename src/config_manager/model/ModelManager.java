@@ -22,6 +22,7 @@ public class ModelManager implements CommandHandler {
 //    private Map<Integer, String> tileIdToTileTextureMap;
     private List<Observer> observers;
     private List<Command> commandHistory;
+    private List<Command> redoHistory;
     private final String configurationDirectory;
 
     private static ModelManager instance;
@@ -39,6 +40,7 @@ public class ModelManager implements CommandHandler {
         mapHeight = MAP_DEFAULT_HEIGHT_IN_TILES;
         observers = new ArrayList<Observer>();
         commandHistory = new ArrayList<Command>();
+        redoHistory = new ArrayList<Command>();
         tileIdToTileTypeMap = new HashMap<Integer, TileType>();
 //        tileIdToTileTextureMap = new HashMap<Integer, String>();
         tileTypes = getLoadedTileTypesFromJson(configurationDir + File.separator + currentConfig + File.separator + tileTypeFileName);
@@ -277,6 +279,7 @@ public class ModelManager implements CommandHandler {
     public void performCommand(Command command) {
         command.perform();
         commandHistory.add(command);
+        redoHistory.clear();
         fireCommandListChanged();
     }
 
@@ -284,7 +287,16 @@ public class ModelManager implements CommandHandler {
     public void undoLastCommand() {
         if (commandHistory.size() > 0) {
             commandHistory.get(commandHistory.size() - 1).undo();
-            commandHistory.remove(commandHistory.size() - 1);
+            redoHistory.add(commandHistory.remove(commandHistory.size() - 1));
+            fireCommandListChanged();
+        }
+    }
+
+    @Override
+    public void redoLastCommand() {
+        if (redoHistory.size() > 0) {
+            redoHistory.get(redoHistory.size() - 1).perform();
+            commandHistory.add(redoHistory.remove(redoHistory.size() - 1));
             fireCommandListChanged();
         }
     }
@@ -292,6 +304,7 @@ public class ModelManager implements CommandHandler {
     @Override
     public void clearCommandHistory() {
         commandHistory.clear();
+        redoHistory.clear();
         fireCommandListChanged();
     }
 
@@ -300,6 +313,11 @@ public class ModelManager implements CommandHandler {
         return commandHistory.size();
     }
 
+    @Override
+    public int getRedoHistorySize() {
+        return redoHistory.size();
+    }
+
     public static enum ModelManagerUpdateType {MATERIAL_UPDATE, TILE_UPDATE, TOTAL_MAP_UPDATE, MAP_FILE_UPDATE, NEW_MODEL, COMMAND_LIST_CHANGED;}
 
     public static class ModelManagerUpdateInfo {
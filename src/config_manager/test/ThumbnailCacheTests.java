@@ -0,0 +1,79 @@
+package config_manager.test;
+
+import config_manager.gui.ThumbnailCache;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThumbnailCacheTests extends TestCase {
+    private static void writeTexture(File file, Color color) throws IOException {
+        BufferedImage texture = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = texture.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 16, 16);
+        g.dispose();
+        ImageIO.write(texture, "png", file);
+    }
+
+    private static ImageIcon getThumbnailOnEdt(final ThumbnailCache thumbnailCache, final int tileID) throws Exception {
+        final ImageIcon[] icon = new ImageIcon[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                icon[0] = thumbnailCache.getThumbnail(tileID);
+            }
+        });
+        return icon[0];
+    }
+
+    private static int getCenterRGB(ImageIcon icon) {
+        return ((BufferedImage) icon.getImage()).getRGB(icon.getIconWidth() / 2, icon.getIconHeight() / 2);
+    }
+
+    public void test_thumbnailsAreServedFromAtlasAndReloadedWhenTextureChanges() throws Exception {
+        File directory = File.createTempFile("thumbnails", "");
+        directory.delete();
+        directory.mkdirs();
+        File textureFile = new File(directory, "texture.png");
+        writeTexture(textureFile, Color.RED);
+        Map<Integer, String> textureFileNames = new HashMap<Integer, String>();
+        textureFileNames.put(1, "texture.png");
+        final CountDownLatch[] loaded = {new CountDownLatch(1)};
+        final ThumbnailCache thumbnailCache = new ThumbnailCache(directory.getPath(), textureFileNames, 50, new ThumbnailCache.Listener() {
+            @Override
+            public void thumbnailsLoaded() {
+                loaded[0].countDown();
+            }
+        });
+        try {
+            final ImageIcon placeholder = getThumbnailOnEdt(thumbnailCache, 1);
+            Assert.assertTrue(loaded[0].await(10, TimeUnit.SECONDS));
+            final ImageIcon icon = getThumbnailOnEdt(thumbnailCache, 1);
+            Assert.assertNotSame(placeholder, icon);
+            Assert.assertSame(icon, getThumbnailOnEdt(thumbnailCache, 1));
+            Assert.assertEquals(50, icon.getIconWidth());
+            Assert.assertEquals(Color.RED.getRGB(), getCenterRGB(icon));
+
+            loaded[0] = new CountDownLatch(1);
+            writeTexture(textureFile, Color.BLUE);
+            textureFile.setLastModified(textureFile.lastModified() + 5000);
+            Thread.sleep(1100);
+            Assert.assertSame(icon, getThumbnailOnEdt(thumbnailCache, 1));
+            Assert.assertTrue(loaded[0].await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(Color.BLUE.getRGB(), getCenterRGB(getThumbnailOnEdt(thumbnailCache, 1)));
+        } finally {
+            textureFile.delete();
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package editor.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class AllocationCounter {
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public AllocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadMXBean = (com.sun.management.ThreadMXBean) bean;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        else
+            threadMXBean = null;
+    }
+
+    public boolean isSupported() {
+        return threadMXBean != null;
+    }
+
+    public long getAllocatedBytes() {
+        return threadMXBean == null ? -1 : threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,28 @@
+package editor.bench;
+
+public abstract class Benchmark {
+    private final String name;
+    private final String parameters;
+
+    public Benchmark(String _name, String _parameters) {
+        name = _name;
+        parameters = _parameters;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public void setUp() throws Exception { }
+
+    // Called before each runOnce of runSamples, outside of the measured time.
+    public void prepareOnce() throws Exception { }
+
+    public abstract Object runOnce() throws Exception;
+
+    public void tearDown() throws Exception { }
+}
@@ -0,0 +1,84 @@
+package editor.bench;
+
+import java.util.Arrays;
+
+public class BenchmarkResult {
+    private final String name;
+    private final String parameters;
+    private final long operationCount;
+    private final double[] nanosPerOperation;
+    private final double bytesPerOperation;
+
+    public BenchmarkResult(String _name, String _parameters, long _operationCount, double[] _nanosPerOperation, double _bytesPerOperation) {
+        name = _name;
+        parameters = _parameters;
+        operationCount = _operationCount;
+        nanosPerOperation = _nanosPerOperation.clone();
+        Arrays.sort(nanosPerOperation);
+        bytesPerOperation = _bytesPerOperation;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    public double getMeanNanosPerOperation() {
+        double sum = 0;
+        for (double value : nanosPerOperation)
+            sum += value;
+        return sum / nanosPerOperation.length;
+    }
+
+    public double getBytesPerOperation() {
+        return bytesPerOperation;
+    }
+
+    public double getPercentileNanosPerOperation(double percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * nanosPerOperation.length) - 1;
+        return nanosPerOperation[Math.max(0, Math.min(nanosPerOperation.length - 1, index))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %-24s %12s %12s %12s %12s %12s %12s %10d", name, parameters,
+                formatNanos(getMeanNanosPerOperation()),
+                formatNanos(getPercentileNanosPerOperation(50)),
+                formatNanos(getPercentileNanosPerOperation(90)),
+                formatNanos(getPercentileNanosPerOperation(99)),
+                formatNanos(getPercentileNanosPerOperation(100)),
+                formatBytes(bytesPerOperation),
+                operationCount);
+    }
+
+    public static String getHeader() {
+        return String.format("%-40s %-24s %12s %12s %12s %12s %12s %12s %10s", "benchmark", "parameters", "mean/op", "p50/op", "p90/op", "p99/op", "max/op", "alloc/op", "ops");
+    }
+
+    public static String formatNanos(double nanos) {
+        if (nanos >= 1e9)
+            return String.format("%.3f s", nanos / 1e9);
+        if (nanos >= 1e6)
+            return String.format("%.3f ms", nanos / 1e6);
+        if (nanos >= 1e3)
+            return String.format("%.3f us", nanos / 1e3);
+        return String.format("%.1f ns", nanos);
+    }
+
+    public static String formatBytes(double bytes) {
+        if (bytes < 0)
+            return "n/a";
+        if (bytes >= 1 << 20)
+            return String.format("%.2f MB", bytes / (1 << 20));
+        if (bytes >= 1 << 10)
+            return String.format("%.2f KB", bytes / (1 << 10));
+        return String.format("%.0f B", bytes);
+    }
+}
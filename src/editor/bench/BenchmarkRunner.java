@@ -0,0 +1,130 @@
+package editor.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationTimeInNanos;
+    private final Pattern filter;
+    private final PrintStream out;
+    private final AllocationCounter allocationCounter;
+    private volatile int sink;
+
+    public BenchmarkRunner(int _warmupIterations, int _measurementIterations, long iterationTimeInMillis, String _filter, PrintStream _out) {
+        warmupIterations = _warmupIterations;
+        measurementIterations = _measurementIterations;
+        iterationTimeInNanos = iterationTimeInMillis * 1000000L;
+        filter = Pattern.compile(_filter == null ? ".*" : _filter);
+        out = _out;
+        allocationCounter = new AllocationCounter();
+    }
+
+    public static BenchmarkRunner createFromSystemProperties() {
+        return new BenchmarkRunner(Integer.getInteger("bench.warmup", 3),
+                Integer.getInteger("bench.iterations", 5),
+                Long.getLong("bench.timeMillis", 1000L),
+                System.getProperty("bench.filter"),
+                System.out);
+    }
+
+    public List<BenchmarkResult> run(List<Benchmark> benchmarks) {
+        List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+        printHeader();
+        for (Benchmark benchmark : benchmarks) {
+            if (!isIncluded(benchmark))
+                continue;
+            BenchmarkResult result = run(benchmark);
+            out.println(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    public BenchmarkResult run(Benchmark benchmark) {
+        try {
+            benchmark.setUp();
+            try {
+                for (int k = 0; k < warmupIterations; k++)
+                    runIteration(benchmark, null);
+                double[] nanosPerOperation = new double[measurementIterations];
+                long operationCount = 0;
+                final long allocatedBytes = allocationCounter.getAllocatedBytes();
+                for (int k = 0; k < measurementIterations; k++) {
+                    long[] iteration = new long[2];
+                    runIteration(benchmark, iteration);
+                    nanosPerOperation[k] = (double) iteration[1] / iteration[0];
+                    operationCount += iteration[0];
+                }
+                return new BenchmarkResult(benchmark.getName(), benchmark.getParameters(), operationCount, nanosPerOperation,
+                        getBytesPerOperation(allocatedBytes, operationCount));
+            } finally {
+                benchmark.tearDown();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Benchmark \"" + benchmark.getName() + "\" failed", e);
+        }
+    }
+
+    public BenchmarkResult runSamples(Benchmark benchmark, int warmupOperations, int measuredOperations) {
+        try {
+            benchmark.setUp();
+            try {
+                for (int k = 0; k < warmupOperations; k++) {
+                    benchmark.prepareOnce();
+                    sink ^= System.identityHashCode(benchmark.runOnce());
+                }
+                double[] nanosPerOperation = new double[measuredOperations];
+                final long allocatedBytes = allocationCounter.getAllocatedBytes();
+                for (int k = 0; k < measuredOperations; k++) {
+                    benchmark.prepareOnce();
+                    final long startTime = System.nanoTime();
+                    Object result = benchmark.runOnce();
+                    nanosPerOperation[k] = System.nanoTime() - startTime;
+                    sink ^= System.identityHashCode(result);
+                }
+                BenchmarkResult result = new BenchmarkResult(benchmark.getName(), benchmark.getParameters(), measuredOperations, nanosPerOperation,
+                        getBytesPerOperation(allocatedBytes, measuredOperations));
+                out.println(result);
+                return result;
+            } finally {
+                benchmark.tearDown();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Benchmark \"" + benchmark.getName() + "\" failed", e);
+        }
+    }
+
+    public boolean isIncluded(Benchmark benchmark) {
+        return filter.matcher(benchmark.getName()).find();
+    }
+
+    public void printHeader() {
+        out.println(BenchmarkResult.getHeader());
+    }
+
+    private double getBytesPerOperation(long allocatedBytesBefore, long operationCount) {
+        if (allocatedBytesBefore < 0 || operationCount == 0)
+            return -1;
+        return (double) (allocationCounter.getAllocatedBytes() - allocatedBytesBefore) / operationCount;
+    }
+
+    private void runIteration(Benchmark benchmark, long[] iteration) throws Exception {
+        long operations = 0;
+        final long startTime = System.nanoTime();
+        long elapsedTime;
+        do {
+            Object result = benchmark.runOnce();
+            sink ^= System.identityHashCode(result);
+            operations++;
+            elapsedTime = System.nanoTime() - startTime;
+        } while (elapsedTime < iterationTimeInNanos);
+        if (iteration != null) {
+            iteration[0] = operations;
+            iteration[1] = elapsedTime;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package editor.bench;
+
+import editor.model.*;
+
+import java.io.File;
+import java.util.*;
+
+public class ModelBenchmarks {
+    private static final String[] MATERIALS = { "GRASS", "DIRT", "SAND", "WATER", "ROCK", "SNOW", "ICE", "LAVA" };
+
+    public static void main(String[] args) {
+        final int[] mapSides = parseSizes(System.getProperty("bench.mapSides", "100,1000,4000"));
+        final int[] tileSetSizes = parseSizes(System.getProperty("bench.tileSetSizes", "64,1024,8192"));
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (int mapSide : mapSides) {
+            benchmarks.add(new SaveMapAsJsonBenchmark(mapSide));
+            benchmarks.add(new OpenMapFromJsonBenchmark(mapSide));
+            benchmarks.add(new SmartUpdateBenchmark(mapSide));
+            benchmarks.add(new MapStringRepresentationBenchmark(mapSide));
+        }
+        for (int tileSetSize : tileSetSizes) {
+            benchmarks.add(new ApplicableTileTypesBenchmark(tileSetSize));
+            benchmarks.add(new TagIndexBuildBenchmark(tileSetSize));
+            benchmarks.add(new TileTypesWithTagsBenchmark(tileSetSize));
+            benchmarks.add(new RelatedTileTypesBenchmark(tileSetSize));
+        }
+        BenchmarkRunner.createFromSystemProperties().run(benchmarks);
+    }
+
+    private static int[] parseSizes(String sizes) {
+        String[] values = sizes.split(",");
+        int[] result = new int[values.length];
+        for (int k = 0; k < values.length; k++)
+            result[k] = Integer.parseInt(values[k].trim());
+        return result;
+    }
+
+    public static TileGrid createRandomMap(int width, int height, List<TileType> tileTypes, long seed) {
+        Random random = new Random(seed);
+        TileGrid tiles = new ArrayTileGrid(width, height);
+        for (int i = 0; i < width; i++)
+            for (int j = 0; j < height; j++)
+                tiles.setTileAt(i, j, tileTypes.get(random.nextInt(tileTypes.size())).getId());
+        return tiles;
+    }
+
+    public static List<TileType> createTileTypes(int count, long seed) {
+        Random random = new Random(seed);
+        final int materialGroups = Math.max(MATERIALS.length, count / 16);
+        List<TileType> tileTypes = new ArrayList<TileType>(count);
+        for (int k = 0; k < count; k++) {
+            Collection<String> tags = new ArrayList<String>();
+            tags.add("M" + (k % materialGroups));
+            if (k < materialGroups)
+                tags.add(TileTagIndex.COMMON_TAG);
+            else
+                tags.add("M" + random.nextInt(materialGroups));
+            TileType tileType = new TileType(k + 1, "TILE" + (k + 1), "tile" + (k + 1) + ".png", tags);
+            for (TileType.Side side : TileType.Side.values())
+                tileType.setNeighbourMaterial(side, MATERIALS[random.nextInt(MATERIALS.length)]);
+            tileTypes.add(tileType);
+        }
+        return tileTypes;
+    }
+
+    private static String getMapParameters(int mapSide) {
+        return "tiles=" + mapSide + "x" + mapSide;
+    }
+
+    private static class SaveMapAsJsonBenchmark extends Benchmark {
+        private final int mapSide;
+        private File file;
+
+        private SaveMapAsJsonBenchmark(int _mapSide) {
+            super("ModelManager.saveMapAsJson", getMapParameters(_mapSide));
+            mapSide = _mapSide;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            ModelManager modelManager = ModelManager.getInstance();
+            modelManager.setOpenedMap(createRandomMap(mapSide, mapSide, modelManager.getBasicTileTypes(), 1), "");
+            file = File.createTempFile("bench", ".json");
+        }
+
+        @Override
+        public Object runOnce() {
+            ModelManager.getInstance().saveMapAsJson(file);
+            return file;
+        }
+
+        @Override
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    private static class OpenMapFromJsonBenchmark extends Benchmark {
+        private final int mapSide;
+        private File file;
+
+        private OpenMapFromJsonBenchmark(int _mapSide) {
+            super("ModelManager.openMapFromJson", getMapParameters(_mapSide));
+            mapSide = _mapSide;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            file = File.createTempFile("bench", ".json");
+            ModelManager modelManager = ModelManager.getInstance();
+            modelManager.writeMap(createRandomMap(mapSide, mapSide, modelManager.getBasicTileTypes(), 1), file, null);
+        }
+
+        @Override
+        public Object runOnce() {
+            ModelManager.getInstance().openMapFromJson(file.getAbsolutePath());
+            return ModelManager.getInstance().getMapWidth();
+        }
+
+        @Override
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    private static class SmartUpdateBenchmark extends Benchmark {
+        private final int mapSide;
+        private final Random random;
+        private int[] materialIDs;
+
+        private SmartUpdateBenchmark(int _mapSide) {
+            super("SmartUpdateTileAtCommand.perform", getMapParameters(_mapSide));
+            mapSide = _mapSide;
+            random = new Random(2);
+        }
+
+        @Override
+        public void setUp() {
+            ModelManager modelManager = ModelManager.getInstance();
+            List<TileType> basicTileTypes = modelManager.getBasicTileTypes();
+            materialIDs = new int[basicTileTypes.size()];
+            for (int k = 0; k < materialIDs.length; k++)
+                materialIDs[k] = basicTileTypes.get(k).getId();
+            TileGrid tiles = new ArrayTileGrid(mapSide, mapSide);
+            for (int i = 0; i < mapSide; i++)
+                for (int j = 0; j < mapSide; j++)
+                    tiles.setTileAt(i, j, materialIDs[0]);
+            modelManager.setOpenedMap(tiles, "");
+        }
+
+        @Override
+        public Object runOnce() {
+            ModelManager modelManager = ModelManager.getInstance();
+            ModelManager.SmartUpdateTileAtCommand command = modelManager.new SmartUpdateTileAtCommand(random.nextInt(mapSide),
+                    random.nextInt(mapSide), materialIDs[random.nextInt(materialIDs.length)]);
+            command.perform();
+            return command;
+        }
+    }
+
+    private static class MapStringRepresentationBenchmark extends Benchmark {
+        private final int mapSide;
+
+        private MapStringRepresentationBenchmark(int _mapSide) {
+            super("ModelManager.getMapStringRepresentation", getMapParameters(_mapSide));
+            mapSide = _mapSide;
+        }
+
+        @Override
+        public void setUp() {
+            ModelManager modelManager = ModelManager.getInstance();
+            modelManager.setOpenedMap(createRandomMap(mapSide, mapSide, modelManager.getBasicTileTypes(), 3), "");
+        }
+
+        @Override
+        public Object runOnce() {
+            return ModelManager.getInstance().getMapStringRepresentation();
+        }
+    }
+
+    private static class ApplicableTileTypesBenchmark extends Benchmark {
+        private final int tileSetSize;
+        private final Random random;
+        private List<TileType> tileTypes;
+
+        private ApplicableTileTypesBenchmark(int _tileSetSize) {
+            super("TileType.getApplicableTileTypes", "tileTypes=" + _tileSetSize);
+            tileSetSize = _tileSetSize;
+            random = new Random(4);
+        }
+
+        @Override
+        public void setUp() {
+            tileTypes = createTileTypes(tileSetSize, 5);
+        }
+
+        @Override
+        public Object runOnce() {
+            TileType tileType = tileTypes.get(random.nextInt(tileSetSize));
+            return tileType.getApplicableTileTypes(tileTypes, TileType.Side.WSW, TileType.Side.WNW);
+        }
+    }
+
+    private static class TagIndexBuildBenchmark extends Benchmark {
+        private final int tileSetSize;
+        private List<TileType> tileTypes;
+
+        private TagIndexBuildBenchmark(int _tileSetSize) {
+            super("TileTagIndex.<init>", "tileTypes=" + _tileSetSize);
+            tileSetSize = _tileSetSize;
+        }
+
+        @Override
+        public void setUp() {
+            tileTypes = createTileTypes(tileSetSize, 6);
+        }
+
+        @Override
+        public Object runOnce() {
+            return new TileTagIndex(tileTypes);
+        }
+    }
+
+    private static class TileTypesWithTagsBenchmark extends Benchmark {
+        private final int tileSetSize;
+        private final Random random;
+        private TileTagIndex tagIndex;
+        private int materialGroups;
+
+        private TileTypesWithTagsBenchmark(int _tileSetSize) {
+            super("TileTagIndex.getTileTypesWithTags", "tileTypes=" + _tileSetSize);
+            tileSetSize = _tileSetSize;
+            random = new Random(7);
+        }
+
+        @Override
+        public void setUp() {
+            tagIndex = new TileTagIndex(createTileTypes(tileSetSize, 8));
+            materialGroups = tagIndex.getBasicTileTypes().size();
+        }
+
+        @Override
+        public Object runOnce() {
+            List<String> tags = new ArrayList<String>(2);
+            tags.add("M" + random.nextInt(materialGroups));
+            tags.add("M" + random.nextInt(materialGroups));
+            return tagIndex.getTileTypesWithTags(tags);
+        }
+    }
+
+    private static class RelatedTileTypesBenchmark extends Benchmark {
+        private final int tileSetSize;
+        private final Random random;
+        private List<TileType> tileTypes;
+        private TileTagIndex tagIndex;
+
+        private RelatedTileTypesBenchmark(int _tileSetSize) {
+            super("TileTagIndex.getRelatedTileTypes", "tileTypes=" + _tileSetSize);
+            tileSetSize = _tileSetSize;
+            random = new Random(9);
+        }
+
+        @Override
+        public void setUp() {
+            tileTypes = createTileTypes(tileSetSize, 10);
+            tagIndex = new TileTagIndex(tileTypes);
+        }
+
+        @Override
+        public Object runOnce() {
+            return tagIndex.getRelatedTileTypes(tileTypes.get(random.nextInt(tileSetSize)));
+        }
+    }
+}
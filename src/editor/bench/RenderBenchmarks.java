@@ -0,0 +1,158 @@
+package editor.bench;
+
+import editor.gui.WorkingAreaPanel;
+import editor.model.ModelManager;
+import editor.model.TileGrid;
+import editor.model.TileType;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+public class RenderBenchmarks {
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        final int[] mapSides = parseList(System.getProperty("bench.mapSides", "256,2048"));
+        final int[] tileSizes = parseList(System.getProperty("bench.tileSizes", "8,32,96"));
+        final String[] viewports = System.getProperty("bench.viewports", "800x600,1920x1080").split(",");
+        final int warmupFrames = Integer.getInteger("bench.warmupFrames", 100);
+        final int frames = Integer.getInteger("bench.frames", 300);
+
+        BenchmarkRunner runner = BenchmarkRunner.createFromSystemProperties();
+        runner.printHeader();
+        for (int mapSide : mapSides) {
+            for (int tileSize : tileSizes) {
+                for (String viewport : viewports) {
+                    String[] dimensions = viewport.trim().split("x");
+                    final int viewportWidth = Integer.parseInt(dimensions[0]);
+                    final int viewportHeight = Integer.parseInt(dimensions[1]);
+                    for (Scenario scenario : Scenario.values()) {
+                        Benchmark benchmark = new PaintBenchmark(scenario, mapSide, tileSize, viewportWidth, viewportHeight);
+                        if (runner.isIncluded(benchmark))
+                            runner.runSamples(benchmark, warmupFrames, frames);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] parseList(String values) {
+        String[] parts = values.split(",");
+        int[] result = new int[parts.length];
+        for (int k = 0; k < parts.length; k++)
+            result[k] = Integer.parseInt(parts[k].trim());
+        return result;
+    }
+
+    public static enum Scenario {
+        FULL, PAN, BRUSH;
+
+        public String getBenchmarkName() {
+            return "WorkingAreaPanel.paint[" + name().toLowerCase() + "]";
+        }
+    }
+
+    public static class PaintBenchmark extends Benchmark {
+        private final Scenario scenario;
+        private final int mapSide;
+        private final int tileSize;
+        private final int viewportWidth, viewportHeight;
+        private final Random random;
+        private WorkingAreaPanel panel;
+        private BufferedImage frameImage;
+        private int[] materialIDs;
+        private int viewX, viewY;
+        private Rectangle clip;
+
+        private static final int PAN_STEP_IN_PIXELS = 7;
+
+        public PaintBenchmark(Scenario _scenario, int _mapSide, int _tileSize, int _viewportWidth, int _viewportHeight) {
+            super(_scenario.getBenchmarkName(), "map=" + _mapSide + " tile=" + _tileSize + " view=" + _viewportWidth + "x" + _viewportHeight);
+            scenario = _scenario;
+            mapSide = _mapSide;
+            tileSize = _tileSize;
+            viewportWidth = _viewportWidth;
+            viewportHeight = _viewportHeight;
+            random = new Random(11);
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    createPanel();
+                }
+            });
+        }
+
+        private void createPanel() {
+            ModelManager modelManager = ModelManager.getInstance();
+            modelManager.increaseTileSizeInPixels(modelManager.getTileSizeInPixels() - tileSize);
+            List<TileType> basicTileTypes = modelManager.getBasicTileTypes();
+            materialIDs = new int[basicTileTypes.size()];
+            for (int k = 0; k < materialIDs.length; k++)
+                materialIDs[k] = basicTileTypes.get(k).getId();
+            TileGrid tiles = ModelBenchmarks.createRandomMap(mapSide, mapSide, basicTileTypes, 12);
+            panel = new WorkingAreaPanel();
+            modelManager.setOpenedMap(tiles, "");
+            frameImage = new BufferedImage(viewportWidth, viewportHeight, BufferedImage.TYPE_INT_RGB);
+            viewX = viewY = 0;
+        }
+
+        @Override
+        public void prepareOnce() throws Exception {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    prepareFrame();
+                }
+            });
+        }
+
+        private void prepareFrame() {
+            ModelManager modelManager = ModelManager.getInstance();
+            final int tileSizeInPixels = modelManager.getTileSizeInPixels();
+            final int mapSizeInPixels = mapSide * tileSizeInPixels;
+            clip = new Rectangle(viewX, viewY, viewportWidth, viewportHeight);
+            switch (scenario) {
+                case FULL:
+                    panel.update(null, new ModelManager.ModelManagerUpdateInfo(ModelManager.ModelManagerUpdateType.TOTAL_MAP_UPDATE, null));
+                    break;
+                case PAN:
+                    viewX = (viewX + PAN_STEP_IN_PIXELS) % Math.max(1, mapSizeInPixels - viewportWidth);
+                    viewY = (viewY + PAN_STEP_IN_PIXELS) % Math.max(1, mapSizeInPixels - viewportHeight);
+                    clip.setLocation(viewX, viewY);
+                    break;
+                case BRUSH:
+                    final int tileX = random.nextInt(Math.max(1, Math.min(mapSide, viewportWidth / tileSizeInPixels)));
+                    final int tileY = random.nextInt(Math.max(1, Math.min(mapSide, viewportHeight / tileSizeInPixels)));
+                    modelManager.new UpdateTileAtCommand(tileX, tileY, materialIDs[random.nextInt(materialIDs.length)]).perform();
+                    clip = new Rectangle(tileX * tileSizeInPixels, tileY * tileSizeInPixels, tileSizeInPixels, tileSizeInPixels);
+                    break;
+            }
+        }
+
+        @Override
+        public Object runOnce() {
+            Graphics2D g = frameImage.createGraphics();
+            try {
+                g.translate(-viewX, -viewY);
+                g.setClip(clip);
+                panel.paintComponent(g);
+            } finally {
+                g.dispose();
+            }
+            return frameImage;
+        }
+
+        @Override
+        public void tearDown() {
+            ModelManager.getInstance().unregisterObserver(panel);
+            panel = null;
+            frameImage = null;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package editor.cli;
+
+import editor.model.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class MapBatchTool {
+    private final TileSet tileSet;
+    private final String configName;
+    private final Operation operation;
+    private final String targetExtension;
+    private final int newWidth, newHeight;
+    private final int fillTileID;
+    private final File outputDirectory;
+    private final int threadCount;
+    private final AutoTiler autoTiler;
+
+    private static final int MAX_REPORTED_UNKNOWN_TILES = 5;
+
+    public static enum Operation { VALIDATE, CONVERT, RESIZE, AUTOTILE }
+
+    public static enum Status { OK, INVALID, FAILED }
+
+    public MapBatchTool(TileSet _tileSet, String _configName, Operation _operation, String _targetExtension,
+                        int _newWidth, int _newHeight, int _fillTileID, File _outputDirectory, int _threadCount) {
+        tileSet = _tileSet;
+        configName = _configName;
+        operation = _operation;
+        targetExtension = _targetExtension;
+        newWidth = _newWidth;
+        newHeight = _newHeight;
+        fillTileID = _fillTileID;
+        outputDirectory = _outputDirectory;
+        threadCount = _threadCount;
+        autoTiler = _operation == Operation.AUTOTILE ? new AutoTiler(_tileSet.getTileAdjacencyMatrix()) : null;
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args, System.out));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            printUsage(System.err);
+            System.exit(2);
+        }
+    }
+
+    public static int run(String[] args, PrintStream out) {
+        String configurationDirectory = "configurations";
+        String configName = "config1";
+        String targetExtension = BinaryMapFormat.FILE_EXTENSION;
+        int newWidth = -1, newHeight = -1;
+        int fillTileID = -1;
+        File outputDirectory = null;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        Operation operation = null;
+        List<File> inputs = new ArrayList<File>();
+        for (int k = 0; k < args.length; k++) {
+            final String arg = args[k];
+            if (arg.equals("--configurations"))
+                configurationDirectory = getValue(args, ++k, arg);
+            else if (arg.equals("--config"))
+                configName = getValue(args, ++k, arg);
+            else if (arg.equals("--format"))
+                targetExtension = getExtensionOfFormat(getValue(args, ++k, arg));
+            else if (arg.equals("--size")) {
+                String[] size = getValue(args, ++k, arg).toLowerCase().split("x");
+                if (size.length != 2)
+                    throw new IllegalArgumentException("--size must look like 256x128");
+                newWidth = parsePositiveInt(size[0], arg);
+                newHeight = parsePositiveInt(size[1], arg);
+            }
+            else if (arg.equals("--fill"))
+                fillTileID = parsePositiveInt(getValue(args, ++k, arg), arg);
+            else if (arg.equals("--output"))
+                outputDirectory = new File(getValue(args, ++k, arg));
+            else if (arg.equals("--threads"))
+                threadCount = parsePositiveInt(getValue(args, ++k, arg), arg);
+            else if (arg.startsWith("--"))
+                throw new IllegalArgumentException("Unknown option " + arg);
+            else if (operation == null) {
+                try {
+                    operation = Operation.valueOf(arg.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown command \"" + arg + "\"");
+                }
+            }
+            else
+                inputs.add(new File(arg));
+        }
+        if (operation == null)
+            throw new IllegalArgumentException("No command given");
+        if (operation == Operation.RESIZE && newWidth < 0)
+            throw new IllegalArgumentException("resize needs --size");
+        List<File> mapFiles = collectMapFiles(inputs);
+        if (mapFiles.isEmpty())
+            throw new IllegalArgumentException("No map files given");
+        if (outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IllegalArgumentException("Can't create output directory \"" + outputDirectory + "\"");
+
+        TileSet tileSet = new ConfigurationRegistry(configurationDirectory, "tileTypes.json").getTileSet(configName);
+        if (fillTileID < 0)
+            fillTileID = tileSet.getTileTypes().get(0).getId();
+        else if (!tileSet.isKnownTileID(fillTileID))
+            throw new IllegalArgumentException("--fill tile " + fillTileID + " is not in configuration \"" + configName + "\"");
+
+        MapBatchTool tool = new MapBatchTool(tileSet, configName, operation, targetExtension, newWidth, newHeight,
+                fillTileID, outputDirectory, threadCount);
+        final long startTime = System.nanoTime();
+        List<Result> results = tool.process(mapFiles);
+        return printReport(results, System.nanoTime() - startTime, out);
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("usage: MapBatchTool <validate|convert|resize|autotile> [options] <map files or directories...>");
+        out.println("  --configurations <dir>  configuration root (default: configurations)");
+        out.println("  --config <name>         configuration to validate against (default: config1)");
+        out.println("  --format <json|bmap|mmap>  target format of convert (default: bmap)");
+        out.println("  --size <width>x<height> new map size for resize");
+        out.println("  --fill <tileID>         tile for the area added by resize (default: first tile type)");
+        out.println("  --output <dir>          write results here instead of next to the inputs");
+        out.println("  --threads <n>           worker count (default: number of cores)");
+    }
+
+    private static String getValue(String[] args, int index, String option) {
+        if (index >= args.length)
+            throw new IllegalArgumentException(option + " needs a value");
+        return args[index];
+    }
+
+    private static int parsePositiveInt(String value, String option) {
+        try {
+            final int result = Integer.parseInt(value.trim());
+            if (result > 0)
+                return result;
+        } catch (NumberFormatException e) {
+        }
+        throw new IllegalArgumentException(option + " needs a positive number, not \"" + value + "\"");
+    }
+
+    private static String getExtensionOfFormat(String format) {
+        if (format.equalsIgnoreCase("json"))
+            return ".json";
+        if (format.equalsIgnoreCase("bmap"))
+            return BinaryMapFormat.FILE_EXTENSION;
+        if (format.equalsIgnoreCase("mmap"))
+            return MappedTileGrid.FILE_EXTENSION;
+        throw new IllegalArgumentException("Unknown map format \"" + format + "\"");
+    }
+
+    private static List<File> collectMapFiles(List<File> inputs) {
+        List<File> mapFiles = new ArrayList<File>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                File[] children = input.listFiles();
+                Arrays.sort(children);
+                for (File child : children)
+                    if (child.isFile() && MapFiles.isMapFile(child.getName()))
+                        mapFiles.add(child);
+            }
+            else
+                mapFiles.add(input);
+        }
+        return mapFiles;
+    }
+
+    public List<Result> process(List<File> mapFiles) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threadCount * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<Result>> futures = new ArrayList<Future<Result>>(mapFiles.size());
+        try {
+            for (final File mapFile : mapFiles) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return processFile(mapFile);
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<Result>(futures.size());
+            for (int k = 0; k < futures.size(); k++) {
+                try {
+                    results.add(futures.get(k).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(mapFiles.get(k), null, Status.FAILED, String.valueOf(e.getCause()), 0, 0));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Map processing was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public Result processFile(File mapFile) {
+        final long startTime = System.nanoTime();
+        TileGrid tiles = null;
+        try {
+            tiles = MapFiles.read(mapFile, null, configName, null);
+            String unknownTiles = findUnknownTiles(tiles);
+            if (unknownTiles != null)
+                return new Result(mapFile, null, Status.INVALID, unknownTiles, 0, System.nanoTime() - startTime);
+            if (operation == Operation.VALIDATE)
+                return new Result(mapFile, null, Status.OK, tiles.getWidth() + "x" + tiles.getHeight(), 0, System.nanoTime() - startTime);
+
+            int changedTiles = 0;
+            String message;
+            File target;
+            if (operation == Operation.CONVERT) {
+                target = getTargetFile(mapFile, targetExtension);
+                if (isSameFile(mapFile, target))
+                    message = "already in target format";
+                else {
+                    MapFiles.write(tiles, target, configName, null);
+                    message = "converted to " + target.getName();
+                }
+            }
+            else if (operation == Operation.RESIZE) {
+                message = tiles.getWidth() + "x" + tiles.getHeight() + " -> " + newWidth + "x" + newHeight;
+                target = getTargetFile(mapFile, null);
+                MapFiles.write(new ResizedTileGrid(tiles, newWidth, newHeight, fillTileID), target, configName, null);
+            }
+            else {
+                AutoTiler.Result result = autoTiler.solve(tiles, AutoTileRegion.rectangle(tiles, 0, 0, tiles.getWidth(), tiles.getHeight()));
+                target = getTargetFile(mapFile, null);
+                changedTiles = writeAutoTiledMap(mapFile, tiles, target, result.getDeltas());
+                message = changedTiles + " tiles changed, " + result.getConflictCount() + " conflicts";
+            }
+            return new Result(mapFile, target, Status.OK, message, changedTiles, System.nanoTime() - startTime);
+        } catch (Exception e) {
+            return new Result(mapFile, null, Status.FAILED, e.getMessage(), 0, System.nanoTime() - startTime);
+        } finally {
+            if (tiles instanceof MappedTileGrid)
+                closeQuietly((MappedTileGrid) tiles);
+        }
+    }
+
+    private String findUnknownTiles(TileGrid tiles) {
+        final int width = tiles.getWidth();
+        final int height = tiles.getHeight();
+        StringBuilder sb = null;
+        int unknownTileCount = 0;
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                final int tileID = tiles.getTileAt(i, j);
+                if (tileSet.isKnownTileID(tileID))
+                    continue;
+                if (sb == null)
+                    sb = new StringBuilder();
+                if (unknownTileCount < MAX_REPORTED_UNKNOWN_TILES)
+                    sb.append(unknownTileCount == 0 ? "" : ", ").append("ID=").append(tileID).append(" at (").append(i).append(", ").append(j).append(')');
+                unknownTileCount++;
+            }
+        }
+        if (sb == null)
+            return null;
+        if (unknownTileCount > MAX_REPORTED_UNKNOWN_TILES)
+            sb.append(", ...");
+        return unknownTileCount + " tiles unknown to \"" + configName + "\": " + sb;
+    }
+
+    private int writeAutoTiledMap(File mapFile, TileGrid tiles, File target, TileDeltas deltas) throws IOException {
+        if (!(tiles instanceof MappedTileGrid)) {
+            final int changedTiles = applyDeltas(tiles, deltas);
+            MapFiles.write(tiles, target, configName, null);
+            return changedTiles;
+        }
+        if (isSameFile(mapFile, target))
+            return applyDeltas(tiles, deltas);
+        MapFiles.write(tiles, target, configName, null);
+        MappedTileGrid targetTiles = MappedTileGrid.open(target);
+        try {
+            return applyDeltas(targetTiles, deltas);
+        } finally {
+            targetTiles.close();
+        }
+    }
+
+    private static int applyDeltas(TileGrid tiles, TileDeltas deltas) {
+        int change = 0;
+        for (int run = 0; run < deltas.getRunCount(); run++) {
+            final int y = deltas.getRunY(run);
+            final int toX = deltas.getRunX(run) + deltas.getRunLength(run);
+            for (int x = deltas.getRunX(run); x < toX; x++)
+                tiles.setTileAt(x, y, deltas.getNewTileIdAt(change++));
+        }
+        return change;
+    }
+
+    private File getTargetFile(File mapFile, String extension) {
+        String fileName = mapFile.getName();
+        if (extension != null) {
+            final int dotIndex = fileName.lastIndexOf('.');
+            fileName = (dotIndex < 0 ? fileName : fileName.substring(0, dotIndex)) + extension;
+        }
+        File directory = outputDirectory != null ? outputDirectory : mapFile.getAbsoluteFile().getParentFile();
+        return new File(directory, fileName);
+    }
+
+    private static boolean isSameFile(File first, File second) {
+        return first.getAbsoluteFile().equals(second.getAbsoluteFile());
+    }
+
+    private static void closeQuietly(MappedTileGrid tiles) {
+        try {
+            tiles.close();
+        } catch (IOException e) {
+            System.err.println("Can't close \"" + tiles.getFile() + "\": " + e.getMessage());
+        }
+    }
+
+    private static int printReport(List<Result> results, long elapsedNanos, PrintStream out) {
+        int okCount = 0, invalidCount = 0, failedCount = 0;
+        for (Result result : results) {
+            out.println(result);
+            if (result.getStatus() == Status.OK)
+                okCount++;
+            else if (result.getStatus() == Status.INVALID)
+                invalidCount++;
+            else
+                failedCount++;
+        }
+        out.println(String.format("%d maps: %d ok, %d invalid, %d failed in %.2f s",
+                results.size(), okCount, invalidCount, failedCount, elapsedNanos / 1e9));
+        return invalidCount + failedCount == 0 ? 0 : 1;
+    }
+
+    private static class ResizedTileGrid implements TileGrid {
+        private final TileGrid tiles;
+        private final int width, height;
+        private final int fillTileID;
+
+        private ResizedTileGrid(TileGrid _tiles, int _width, int _height, int _fillTileID) {
+            tiles = _tiles;
+            width = _width;
+            height = _height;
+            fillTileID = _fillTileID;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int getTileAt(int x, int y) {
+            if (x < 0 || x >= width || y < 0 || y >= height)
+                throw new IndexOutOfBoundsException("Tile (" + x + ", " + y + ") is out of " + width + "x" + height + " grid");
+            return x < tiles.getWidth() && y < tiles.getHeight() ? tiles.getTileAt(x, y) : fillTileID;
+        }
+
+        @Override
+        public void setTileAt(int x, int y, int tileID) {
+            throw new UnsupportedOperationException("Resized map is read-only");
+        }
+
+        @Override
+        public void copyRegionTo(TileGrid destination, int fromX, int fromY, int toX, int toY, int regionWidth, int regionHeight) {
+            for (int j = 0; j < regionHeight; j++)
+                for (int i = 0; i < regionWidth; i++)
+                    destination.setTileAt(toX + i, toY + j, getTileAt(fromX + i, fromY + j));
+        }
+
+        @Override
+        public TileGrid copy() {
+            TileGrid copy = new ArrayTileGrid(width, height);
+            copyRegionTo(copy, 0, 0, 0, 0, width, height);
+            return copy;
+        }
+    }
+
+    public static class Result {
+        private final File mapFile;
+        private final File outputFile;
+        private final Status status;
+        private final String message;
+        private final int changedTileCount;
+        private final long elapsedNanos;
+
+        private Result(File _mapFile, File _outputFile, Status _status, String _message, int _changedTileCount, long _elapsedNanos) {
+            mapFile = _mapFile;
+            outputFile = _outputFile;
+            status = _status;
+            message = _message;
+            changedTileCount = _changedTileCount;
+            elapsedNanos = _elapsedNanos;
+        }
+
+        public File getMapFile() {
+            return mapFile;
+        }
+
+        public File getOutputFile() {
+            return outputFile;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public int getChangedTileCount() {
+            return changedTileCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-7s %-40s %8.1f ms  %s", status, mapFile.getPath(), elapsedNanos / 1e6, message);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package editor.gui;
 
+import editor.model.BinaryMapFormat;
 import editor.model.CommandHandler;
 import editor.model.Configurable;
+import editor.model.MappedTileGrid;
 import editor.model.ModelManager;
+import editor.model.TileGrid;
+import editor.service.EditorMetrics;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -17,6 +21,7 @@ import java.io.File;
 public class EditorMenuBar extends JMenuBar {
     private Component parent;
     private JMenuItem undoItem;
+    private JMenuItem redoItem;
     private JCheckBoxMenuItem smartModeCheckBox;
 
     public EditorMenuBar(Component _parent) {
@@ -24,6 +29,7 @@ public class EditorMenuBar extends JMenuBar {
         JMenu mapMenu = new JMenu("Map");
         add(mapMenu);
         mapMenu.add(createClearItem());
+        mapMenu.add(createAutoTileItem());
         mapMenu.addSeparator();
         mapMenu.add(createSettingsItem());
         mapMenu.addSeparator();
@@ -35,8 +41,13 @@ public class EditorMenuBar extends JMenuBar {
         JMenu editMenu = new JMenu("Edit");
         add(editMenu);
         undoItem = createUndoMenuItem();
+        redoItem = createRedoMenuItem();
         checkForCommandListChangesAndUpdate(ModelManager.getInstance());
         editMenu.add(undoItem);
+        editMenu.add(redoItem);
+        JMenu viewMenu = new JMenu("View");
+        add(viewMenu);
+        viewMenu.add(createMetricsOverlayCheckBoxItem());
         JMenu configMenu = new JMenu("Configuration");
         add(configMenu);
         smartModeCheckBox = createSmartModeCheckBoxItem();
@@ -76,6 +87,19 @@ public class EditorMenuBar extends JMenuBar {
         return checkBox;
     }
 
+    private JCheckBoxMenuItem createMetricsOverlayCheckBoxItem() {
+        final JCheckBoxMenuItem checkBox = new JCheckBoxMenuItem("Performance Overlay", EditorMetrics.getInstance().isOverlayVisible());
+        checkBox.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0));
+        checkBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                EditorMetrics.getInstance().setOverlayVisible(checkBox.isSelected());
+                parent.repaint();
+            }
+        });
+        return checkBox;
+    }
+
     private JMenuItem createClearItem() {
         JMenuItem settingsMenuItem = new JMenuItem("Clear");
         settingsMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_N, InputEvent.CTRL_MASK));
@@ -90,6 +114,43 @@ public class EditorMenuBar extends JMenuBar {
         return settingsMenuItem;
     }
 
+    private JMenuItem createAutoTileItem() {
+        JMenuItem autoTileMenuItem = new JMenuItem("Auto-tile");
+        autoTileMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        autoTileMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                autoTileMapInBackground();
+            }
+        });
+        return autoTileMenuItem;
+    }
+
+    private void autoTileMapInBackground() {
+        final ModelManager modelManager = ModelManager.getInstance();
+        final ModelManager.AutoTileRegionCommand command = modelManager.new AutoTileRegionCommand(0, 0, modelManager.getMapWidth(), modelManager.getMapHeight());
+        final long mapModificationCount = modelManager.getMapModificationCount();
+        new MapFileTask<Void>(parent, "Auto-tiling map...", null, "Auto-tile error") {
+            @Override
+            protected Void doInBackground() {
+                command.resolve();
+                return null;
+            }
+
+            @Override
+            protected void succeeded(Void result) {
+                if (ModelManager.getInstance() != modelManager)
+                    return;
+                if (modelManager.getMapModificationCount() != mapModificationCount) {
+                    JOptionPane.showMessageDialog(parent, "The map was changed while it was auto-tiled, run Auto-tile again.", "Auto-tile", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                CommandHandler commandHandler = modelManager;
+                commandHandler.performCommand(command);
+            }
+        }.start();
+    }
+
     private JMenuItem createSettingsItem() {
         JMenuItem settingsMenuItem = new JMenuItem("Settings...");
         settingsMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_MASK | InputEvent.SHIFT_MASK));
@@ -113,6 +174,7 @@ public class EditorMenuBar extends JMenuBar {
         quitMenuItem.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                ModelManager.getInstance().stopJournal(true);
                 System.exit(0);
             }
         });
@@ -127,7 +189,7 @@ public class EditorMenuBar extends JMenuBar {
             public void actionPerformed(ActionEvent e) {
                 ModelManager mgr = ModelManager.getInstance();
                 if (!mgr.getMapAbsolutePath().isEmpty())
-                    mgr.saveMapAsJsonAtCurrentFile();
+                    saveMapInBackground(new File(mgr.getMapAbsolutePath()));
                 else
                     saveMapAsNewJsonFile();
             }
@@ -156,16 +218,8 @@ public class EditorMenuBar extends JMenuBar {
                 JFileChooser fileChooser = new JFileChooser("maps");
                 fileChooser.setMultiSelectionEnabled(false);
                 fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-                if (fileChooser.showDialog(parent, "Open") == JFileChooser.APPROVE_OPTION) {
-                    try {
-                        ModelManager.getInstance().openMapFromJson(fileChooser.getSelectedFile().getAbsolutePath());
-                        CommandHandler commandHandler = ModelManager.getInstance();
-                        commandHandler.clearCommandHistory();
-                    }
-                    catch (Exception exception) {
-                        JOptionPane.showMessageDialog(null, exception.getMessage(), "File open error", JOptionPane.ERROR_MESSAGE);
-                    }
-                }
+                if (fileChooser.showDialog(parent, "Open") == JFileChooser.APPROVE_OPTION)
+                    openMapInBackground(fileChooser.getSelectedFile().getAbsolutePath());
             }
         });
         return openMenuItem;
@@ -184,20 +238,74 @@ public class EditorMenuBar extends JMenuBar {
         return undoMenuItem;
     }
 
+    private JMenuItem createRedoMenuItem() {
+        JMenuItem redoMenuItem = new JMenuItem("Redo");
+        redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        redoMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                CommandHandler commandHandler = ModelManager.getInstance();
+                commandHandler.redoLastCommand();
+            }
+        });
+        return redoMenuItem;
+    }
+
     private void saveMapAsNewJsonFile() {
         JFileChooser fileChooser = new JFileChooser("maps");
         fileChooser.setMultiSelectionEnabled(false);
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         if (fileChooser.showDialog(parent, "Save As") == JFileChooser.APPROVE_OPTION) {
             File f = fileChooser.getSelectedFile();
-            if (!f.getAbsolutePath().endsWith(".json"))
+            if (!f.getAbsolutePath().endsWith(".json") && !BinaryMapFormat.isBinaryMapFile(f.getName()) && !MappedTileGrid.isMappedMapFile(f.getName()))
                 f = new File(f.getAbsolutePath() + ".json");  //TODO - Разрулить! Здесь может быть косяк, т.к. может быть затерт существующий  ни в чем не виновный .json-файл
-            ModelManager.getInstance().saveMapAsJson(f);
+            saveMapInBackground(f);
         }
     }
 
+    private void openMapInBackground(final String fileName) {
+        final ModelManager modelManager = ModelManager.getInstance();
+        new MapFileTask<TileGrid>(parent, "Opening map...", fileName, "File open error") {
+            @Override
+            protected TileGrid doInBackground() {
+                return modelManager.readMap(fileName, this);
+            }
+
+            @Override
+            protected void succeeded(TileGrid tiles) {
+                if (ModelManager.getInstance() != modelManager)
+                    return;
+                modelManager.setOpenedMap(tiles, fileName);
+                CommandHandler commandHandler = modelManager;
+                commandHandler.clearCommandHistory();
+            }
+        }.start();
+    }
+
+    private void saveMapInBackground(final File file) {
+        final ModelManager modelManager = ModelManager.getInstance();
+        final TileGrid mapTiles = modelManager.getTilesForSaving();
+        final long mapModificationCount = modelManager.getMapModificationCount();
+        new MapFileTask<Void>(parent, "Saving map...", file.getAbsolutePath(), "File save error") {
+            @Override
+            protected Void doInBackground() {
+                modelManager.writeMap(mapTiles, file, this);
+                return null;
+            }
+
+            @Override
+            protected void succeeded(Void result) {
+                if (ModelManager.getInstance() != modelManager)
+                    return;
+                if (!modelManager.setSavedMapFile(file, mapModificationCount))
+                    JOptionPane.showMessageDialog(parent, "The map was changed while it was saved, save it again.", "File save", JOptionPane.WARNING_MESSAGE);
+            }
+        }.start();
+    }
+
     public void checkForCommandListChangesAndUpdate(CommandHandler commandHandler) {
         undoItem.setEnabled(commandHandler.getCommandHistorySize() != 0);
+        redoItem.setEnabled(commandHandler.getRedoHistorySize() != 0);
     }
 
     public void checkForSmartModeChangesAndUpdate() {
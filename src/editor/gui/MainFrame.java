@@ -1,11 +1,16 @@
 package editor.gui;
 
+import editor.model.MapJournal;
 import editor.model.ModelManager;
+import editor.service.EditorMetrics;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -17,11 +22,56 @@ public class MainFrame extends JFrame implements Observer {
     private EditorMenuBar menuBar;
 
     private final static String TITLE = "Super Map Editor";
+    private final static String JOURNAL_DIR = "journal";
 
     public static void main(String[] args) {
+        EditorMetrics.getInstance().registerMBean();
         MainFrame mainFrame = new MainFrame();
         mainFrame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        mainFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                ModelManager.getInstance().stopJournal(true);
+            }
+        });
         mainFrame.setVisible(true);
+        mainFrame.startJournal();
+    }
+
+    private void startJournal() {
+        File journalDirectory = new File(JOURNAL_DIR);
+        ModelManager modelManager = ModelManager.getInstance();
+        if (MapJournal.hasRecoverableMap(journalDirectory)) {
+            final int answer = JOptionPane.showConfirmDialog(this, "The editor was not closed properly. Recover the unsaved map?", "Recover map", JOptionPane.YES_NO_OPTION);
+            boolean isRecovered = false;
+            String recoveryError = null;
+            if (answer == JOptionPane.YES_OPTION) {
+                try {
+                    isRecovered = modelManager.recoverFromJournal(journalDirectory);
+                }
+                catch (Exception exception) {
+                    recoveryError = exception.getMessage();
+                }
+            }
+            if (!isRecovered) {
+                try {
+                    File keptSnapshotFile = MapJournal.keepAside(journalDirectory);
+                    if (recoveryError != null)
+                        JOptionPane.showMessageDialog(null, recoveryError + "\nThe unsaved map is kept as \"" + keptSnapshotFile.getPath() + "\".",
+                                "Map recovery error", JOptionPane.ERROR_MESSAGE);
+                }
+                catch (Exception exception) {
+                    JOptionPane.showMessageDialog(null, exception.getMessage(), "Journal error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
+        }
+        try {
+            modelManager.startJournal(journalDirectory);
+        }
+        catch (Exception exception) {
+            JOptionPane.showMessageDialog(null, exception.getMessage(), "Journal error", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     public MainFrame() {
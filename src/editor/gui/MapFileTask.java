@@ -0,0 +1,65 @@
+package editor.gui;
+
+import editor.model.MapProgressListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.ExecutionException;
+
+public abstract class MapFileTask<T> extends SwingWorker<T, Void> implements MapProgressListener {
+    private final Component parent;
+    private final String errorTitle;
+    private final ProgressMonitor progressMonitor;
+
+    private static final int PROGRESS_POPUP_DELAY_IN_MILLIS = 300;
+
+    public MapFileTask(Component _parent, String _message, String _note, String _errorTitle) {
+        parent = _parent;
+        errorTitle = _errorTitle;
+        progressMonitor = new ProgressMonitor(_parent, _message, _note, 0, 100);
+        progressMonitor.setMillisToDecideToPopup(PROGRESS_POPUP_DELAY_IN_MILLIS);
+        progressMonitor.setMillisToPopup(PROGRESS_POPUP_DELAY_IN_MILLIS);
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if ("progress".equals(evt.getPropertyName())) {
+                    progressMonitor.setProgress((Integer) evt.getNewValue());
+                    if (progressMonitor.isCanceled())
+                        cancel(false);
+                }
+            }
+        });
+    }
+
+    public void start() {
+        parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        execute();
+    }
+
+    @Override
+    public void progressChanged(long completed, long total) {
+        if (total > 0)
+            setProgress((int) Math.min(100, completed * 100 / total));
+    }
+
+    protected abstract void succeeded(T result);
+
+    @Override
+    protected void done() {
+        progressMonitor.close();
+        parent.setCursor(Cursor.getDefaultCursor());
+        if (isCancelled())
+            return;
+        try {
+            succeeded(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(null, e.getCause().getMessage(), errorTitle, JOptionPane.ERROR_MESSAGE);
+        } catch (RuntimeException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), errorTitle, JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
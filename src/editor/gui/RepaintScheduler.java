@@ -0,0 +1,120 @@
+package editor.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RepaintScheduler {
+    private final JComponent component;
+    private final Timer frameTimer;
+    private final long frameIntervalInNanos;
+    private final List<Rectangle> dirtyRegions;
+    private long lastFrameTime;
+
+    private static final int MAX_DIRTY_REGIONS = 32;
+
+    public RepaintScheduler(JComponent _component, int maxFramesPerSecond) {
+        component = _component;
+        frameIntervalInNanos = 1000000000L / maxFramesPerSecond;
+        dirtyRegions = new ArrayList<Rectangle>();
+        lastFrameTime = System.nanoTime();
+        frameTimer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        frameTimer.setRepeats(false);
+    }
+
+    public void addDirtyRegion(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0)
+            return;
+        Rectangle region = new Rectangle(x, y, width, height);
+        boolean isMerged = true;
+        while (isMerged) {
+            isMerged = false;
+            for (int k = 0; k < dirtyRegions.size(); k++) {
+                Rectangle dirtyRegion = dirtyRegions.get(k);
+                if (getWastedArea(region, dirtyRegion) <= 0) {
+                    region = region.union(dirtyRegion);
+                    dirtyRegions.remove(k);
+                    isMerged = true;
+                    break;
+                }
+            }
+        }
+        dirtyRegions.add(region);
+        if (dirtyRegions.size() > MAX_DIRTY_REGIONS)
+            mergeCheapestPair();
+        scheduleFrame();
+    }
+
+    public List<Rectangle> getDirtyRegions() {
+        List<Rectangle> regions = new ArrayList<Rectangle>(dirtyRegions.size());
+        for (Rectangle dirtyRegion : dirtyRegions)
+            regions.add(new Rectangle(dirtyRegion));
+        return regions;
+    }
+
+    public void clear() {
+        dirtyRegions.clear();
+        frameTimer.stop();
+    }
+
+    public void flush() {
+        frameTimer.stop();
+        lastFrameTime = System.nanoTime();
+        if (dirtyRegions.isEmpty())
+            return;
+        Rectangle[] regions = dirtyRegions.toArray(new Rectangle[dirtyRegions.size()]);
+        dirtyRegions.clear();
+        if (!component.isShowing())
+            return;
+        for (Rectangle region : regions)
+            component.paintImmediately(region);
+    }
+
+    private void scheduleFrame() {
+        if (frameTimer.isRunning())
+            return;
+        final long sinceLastFrame = System.nanoTime() - lastFrameTime;
+        final long delayInNanos = Math.max(0, frameIntervalInNanos - sinceLastFrame);
+        frameTimer.setInitialDelay((int) (delayInNanos / 1000000L));
+        frameTimer.start();
+    }
+
+    private void mergeCheapestPair() {
+        int firstIndex = 0, secondIndex = 1;
+        long cheapestWastedArea = Long.MAX_VALUE;
+        for (int i = 0; i < dirtyRegions.size(); i++) {
+            for (int j = i + 1; j < dirtyRegions.size(); j++) {
+                final long wastedArea = getWastedArea(dirtyRegions.get(i), dirtyRegions.get(j));
+                if (wastedArea < cheapestWastedArea) {
+                    cheapestWastedArea = wastedArea;
+                    firstIndex = i;
+                    secondIndex = j;
+                }
+            }
+        }
+        Rectangle merged = dirtyRegions.get(firstIndex).union(dirtyRegions.get(secondIndex));
+        dirtyRegions.remove(secondIndex);
+        dirtyRegions.set(firstIndex, merged);
+    }
+
+    private static long getWastedArea(Rectangle first, Rectangle second) {
+        Rectangle union = first.union(second);
+        Rectangle intersection = first.intersection(second);
+        long wastedArea = getArea(union) - getArea(first) - getArea(second);
+        if (!intersection.isEmpty())
+            wastedArea += getArea(intersection);
+        return wastedArea;
+    }
+
+    private static long getArea(Rectangle rectangle) {
+        return (long) rectangle.width * rectangle.height;
+    }
+}
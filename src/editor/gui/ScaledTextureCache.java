@@ -0,0 +1,64 @@
+package editor.gui;
+
+import editor.service.TextureAtlas;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ScaledTextureCache {
+    private final TextureAtlas textureAtlas;
+    private final LinkedHashMap<Integer, Map<Integer, Image>> scaledImagesBySize;
+    private final int maxCachedSizes;
+
+    private static final int DEFAULT_MAX_CACHED_SIZES = 4;
+
+    public ScaledTextureCache(TextureAtlas _textureAtlas) {
+        this(_textureAtlas, DEFAULT_MAX_CACHED_SIZES);
+    }
+
+    public ScaledTextureCache(TextureAtlas _textureAtlas, int _maxCachedSizes) {
+        textureAtlas = _textureAtlas;
+        maxCachedSizes = _maxCachedSizes;
+        scaledImagesBySize = new LinkedHashMap<Integer, Map<Integer, Image>>(_maxCachedSizes + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Map<Integer, Image>> eldest) {
+                return size() > maxCachedSizes;
+            }
+        };
+    }
+
+    public Image getScaledImage(int tileID, int tileSizeInPixels, GraphicsConfiguration graphicsConfiguration) {
+        Map<Integer, Image> scaledImages = scaledImagesBySize.get(tileSizeInPixels);
+        if (scaledImages == null) {
+            scaledImages = new HashMap<Integer, Image>();
+            scaledImagesBySize.put(tileSizeInPixels, scaledImages);
+        }
+        Image scaledImage = scaledImages.get(tileID);
+        if (scaledImage == null) {
+            if (!textureAtlas.hasTexture(tileID))
+                return null;
+            scaledImage = createScaledImage(tileID, tileSizeInPixels, graphicsConfiguration);
+            scaledImages.put(tileID, scaledImage);
+        }
+        return scaledImage;
+    }
+
+    public void clear() {
+        scaledImagesBySize.clear();
+    }
+
+    private Image createScaledImage(int tileID, int tileSizeInPixels, GraphicsConfiguration graphicsConfiguration) {
+        BufferedImage scaledImage;
+        if (graphicsConfiguration != null)
+            scaledImage = graphicsConfiguration.createCompatibleImage(tileSizeInPixels, tileSizeInPixels, Transparency.TRANSLUCENT);
+        else
+            scaledImage = new BufferedImage(tileSizeInPixels, tileSizeInPixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaledImage.createGraphics();
+        textureAtlas.drawTexture(g, tileID, 0, 0, tileSizeInPixels, tileSizeInPixels);
+        g.dispose();
+        return scaledImage;
+    }
+}
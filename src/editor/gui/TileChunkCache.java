@@ -0,0 +1,110 @@
+package editor.gui;
+
+import editor.model.ModelManager;
+import editor.service.EditorMetrics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TileChunkCache {
+    private final ScaledTextureCache scaledTextureCache;
+    private final Color backgroundColor;
+    private final LinkedHashMap<Long, Image> chunkImages;
+    private int tileSizeInPixels;
+    private int chunkSizeInTiles;
+
+    private static final int CHUNK_SIZE_IN_PIXELS = 512;
+    private static final int MAX_CACHED_CHUNKS = 64;
+
+    public TileChunkCache(ScaledTextureCache _scaledTextureCache, Color _backgroundColor) {
+        scaledTextureCache = _scaledTextureCache;
+        backgroundColor = _backgroundColor;
+        chunkImages = new LinkedHashMap<Long, Image>(MAX_CACHED_CHUNKS + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+                return size() > MAX_CACHED_CHUNKS;
+            }
+        };
+    }
+
+    public void draw(Graphics2D graphics2D, int xOffset, int yOffset, int fromTileX, int fromTileY, int toTileX, int toTileY, GraphicsConfiguration graphicsConfiguration) {
+        ModelManager modelManager = ModelManager.getInstance();
+        setTileSizeInPixels(modelManager.getTileSizeInPixels());
+        if (fromTileX >= toTileX || fromTileY >= toTileY)
+            return;
+        final int chunkSizeInPixels = chunkSizeInTiles * tileSizeInPixels;
+        for (int chunkX = fromTileX / chunkSizeInTiles; chunkX <= (toTileX - 1) / chunkSizeInTiles; chunkX++) {
+            for (int chunkY = fromTileY / chunkSizeInTiles; chunkY <= (toTileY - 1) / chunkSizeInTiles; chunkY++) {
+                Image chunkImage = getChunkImage(modelManager, chunkX, chunkY, graphicsConfiguration);
+                graphics2D.drawImage(chunkImage, xOffset + chunkX * chunkSizeInPixels, yOffset + chunkY * chunkSizeInPixels, null);
+            }
+        }
+    }
+
+    public void invalidateTile(int x, int y) {
+        if (chunkSizeInTiles > 0)
+            chunkImages.remove(getChunkKey(x / chunkSizeInTiles, y / chunkSizeInTiles));
+    }
+
+    public void invalidateRegion(int x, int y, int width, int height) {
+        if (chunkSizeInTiles <= 0 || width <= 0 || height <= 0)
+            return;
+        for (int chunkX = x / chunkSizeInTiles; chunkX <= (x + width - 1) / chunkSizeInTiles; chunkX++)
+            for (int chunkY = y / chunkSizeInTiles; chunkY <= (y + height - 1) / chunkSizeInTiles; chunkY++)
+                chunkImages.remove(getChunkKey(chunkX, chunkY));
+    }
+
+    public void invalidateAll() {
+        chunkImages.clear();
+    }
+
+    private void setTileSizeInPixels(int _tileSizeInPixels) {
+        if (tileSizeInPixels != _tileSizeInPixels) {
+            tileSizeInPixels = _tileSizeInPixels;
+            chunkSizeInTiles = Math.max(1, CHUNK_SIZE_IN_PIXELS / tileSizeInPixels);
+            invalidateAll();
+        }
+    }
+
+    private Image getChunkImage(ModelManager modelManager, int chunkX, int chunkY, GraphicsConfiguration graphicsConfiguration) {
+        final long chunkKey = getChunkKey(chunkX, chunkY);
+        Image chunkImage = chunkImages.get(chunkKey);
+        if (chunkImage == null) {
+            chunkImage = renderChunk(modelManager, chunkX, chunkY, graphicsConfiguration);
+            chunkImages.put(chunkKey, chunkImage);
+        }
+        return chunkImage;
+    }
+
+    private Image renderChunk(ModelManager modelManager, int chunkX, int chunkY, GraphicsConfiguration graphicsConfiguration) {
+        final int fromTileX = chunkX * chunkSizeInTiles;
+        final int fromTileY = chunkY * chunkSizeInTiles;
+        final int toTileX = Math.min(modelManager.getMapWidth(), fromTileX + chunkSizeInTiles);
+        final int toTileY = Math.min(modelManager.getMapHeight(), fromTileY + chunkSizeInTiles);
+        final int width = Math.max(1, (toTileX - fromTileX) * tileSizeInPixels);
+        final int height = Math.max(1, (toTileY - fromTileY) * tileSizeInPixels);
+        BufferedImage chunkImage;
+        if (graphicsConfiguration != null)
+            chunkImage = graphicsConfiguration.createCompatibleImage(width, height, Transparency.OPAQUE);
+        else
+            chunkImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = chunkImage.createGraphics();
+        g.setColor(backgroundColor);
+        g.fillRect(0, 0, width, height);
+        for (int i = fromTileX; i < toTileX; i++) {
+            for (int j = fromTileY; j < toTileY; j++) {
+                final Image imageToDraw = scaledTextureCache.getScaledImage(modelManager.getTileAt(i, j), tileSizeInPixels, graphicsConfiguration);
+                g.drawImage(imageToDraw, (i - fromTileX) * tileSizeInPixels, (j - fromTileY) * tileSizeInPixels, null);
+            }
+        }
+        g.dispose();
+        EditorMetrics.getInstance().addTilesRendered((toTileX - fromTileX) * (toTileY - fromTileY));
+        return chunkImage;
+    }
+
+    private static long getChunkKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
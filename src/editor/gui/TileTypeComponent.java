@@ -3,14 +3,10 @@ package editor.gui;
 import editor.model.ModelManager;
 import editor.model.TileType;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 
 public class TileTypeComponent extends Box {
     private ActionListener actionListener;
@@ -22,17 +18,7 @@ public class TileTypeComponent extends Box {
         super(BoxLayout.X_AXIS);
         tileType = _tileType;
         button = new JButton();
-        ImageIcon icon = null;
-        try {
-            BufferedImage bi = new BufferedImage(ModelManager.TOOL_IMAGE_ICON_SIZE, ModelManager.TOOL_IMAGE_ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
-            bi.getGraphics().drawImage(ImageIO.read(new File(ModelManager.getInstance().getImageDirectoryName() + File.separator + tileType.getTexture())), 0, 0, ModelManager.TOOL_IMAGE_ICON_SIZE, ModelManager.TOOL_IMAGE_ICON_SIZE, null);
-            icon = new ImageIcon(bi);
-
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        }
-
+        ImageIcon icon = ModelManager.getInstance().getTextureAtlas().getIcon(tileType.getId(), ModelManager.TOOL_IMAGE_ICON_SIZE);
         button.setIcon(icon);
         button.setPreferredSize(new Dimension(icon.getIconWidth(), icon.getIconHeight()));
         button.setToolTipText(tileType.tooltipText());
@@ -3,31 +3,40 @@ package editor.gui;
 import editor.model.CommandHandler;
 import editor.model.MacroCommand;
 import editor.model.ModelManager;
-import editor.model.TileType;
+import editor.service.EditorMetrics;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
 
 public class WorkingAreaPanel extends JPanel implements Observer {
     private int xOffset, yOffset;
     private int selectedX, selectedY;
     private int necessaryWidth, necessaryHeight;
-    private Map<Integer, Image> images;
+    private ScaledTextureCache scaledTextureCache;
+    private TileChunkCache tileChunkCache;
+    private RepaintScheduler repaintScheduler;
+    private javax.swing.Timer overlayTimer;
+    private Rectangle overlayBounds;
     private MacroCommand lastMacroCommand;
+    private ModelManager.PaintTilesCommand lastPaintCommand;
     private boolean isAllowedToRepaint = true;
     private int fromMouseX, fromMouseY;
 
     private JScrollPane scrollPane;
 
+    private static final Color BACKGROUND_COLOR = Color.DARK_GRAY;
+    private static final int MAX_FRAMES_PER_SECOND = 60;
+    private static final int OVERLAY_REFRESH_MILLIS = 500;
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 160);
+
     public WorkingAreaPanel() {
         selectedX = selectedY = -1;
         ModelManager.getInstance().registerObserver(this);
-        images = getLoadedFromFilesImages();
+        scaledTextureCache = new ScaledTextureCache(ModelManager.getInstance().getTextureAtlas());
+        tileChunkCache = new TileChunkCache(scaledTextureCache, BACKGROUND_COLOR);
+        repaintScheduler = new RepaintScheduler(this, MAX_FRAMES_PER_SECOND);
 
         computeNecessarySize();
         setNecessarySizeForComponent();
@@ -60,33 +69,76 @@ public class WorkingAreaPanel extends JPanel implements Observer {
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         if (isAllowedToRepaint) {
+            final long startTime = System.nanoTime();
             Graphics2D graphics2D = (Graphics2D)g;
             drawBackground(graphics2D);
-            drawWorkingArea(graphics2D);
+            final int tilesDrawn = drawWorkingArea(graphics2D);
+            if (!isOverlayRepaint(g.getClipBounds()))
+                EditorMetrics.getInstance().recordPaint(System.nanoTime() - startTime, tilesDrawn);
+            if (EditorMetrics.getInstance().isOverlayVisible())
+                drawMetricsOverlay(graphics2D);
+            else
+                overlayBounds = null;
+        }
+    }
+
+    private boolean isOverlayRepaint(Rectangle clip) {
+        return overlayBounds != null && clip != null && overlayBounds.contains(clip);
+    }
+
+    private void stopOverlayTimer() {
+        if (overlayTimer != null) {
+            overlayTimer.stop();
+            overlayTimer = null;
         }
     }
 
-    private void drawWorkingArea(Graphics2D graphics2D) {
+    private void drawMetricsOverlay(Graphics2D graphics2D) {
+        java.util.List<String> lines = EditorMetrics.getInstance().getSummaryLines();
+        FontMetrics fontMetrics = graphics2D.getFontMetrics();
+        int width = 0;
+        for (String line : lines)
+            width = Math.max(width, fontMetrics.stringWidth(line));
+        Rectangle visibleRect = getVisibleRect();
+        overlayBounds = new Rectangle(visibleRect.x + 8, visibleRect.y + 8, width + 12, lines.size() * fontMetrics.getHeight() + 8);
+        graphics2D.setColor(OVERLAY_COLOR);
+        graphics2D.fillRect(overlayBounds.x, overlayBounds.y, overlayBounds.width, overlayBounds.height);
+        graphics2D.setColor(Color.WHITE);
+        int y = overlayBounds.y + 4 + fontMetrics.getAscent();
+        for (String line : lines) {
+            graphics2D.drawString(line, overlayBounds.x + 6, y);
+            y += fontMetrics.getHeight();
+        }
+        if (overlayTimer == null) {
+            overlayTimer = new javax.swing.Timer(OVERLAY_REFRESH_MILLIS, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if (!EditorMetrics.getInstance().isOverlayVisible())
+                        stopOverlayTimer();
+                    if (overlayBounds != null)
+                        repaint(overlayBounds);
+                }
+            });
+            overlayTimer.start();
+        }
+    }
+
+    private int drawWorkingArea(Graphics2D graphics2D) {
         ModelManager modelManager = ModelManager.getInstance();
         final int tileSizeInPixels = modelManager.getTileSizeInPixels();
         xOffset = (getWidth() - necessaryWidth) / 2;
         yOffset = (getHeight() - necessaryHeight) / 2;
-        for (int i = 0; i < modelManager.getMapWidth(); i++) {
-            for (int j = 0; j < modelManager.getMapHeight(); j++) {
-                final int xToDraw = xOffset + i * tileSizeInPixels;
-                final int yToDraw = yOffset + j * tileSizeInPixels;
-                graphics2D.translate(xToDraw, yToDraw);
-                final Image IMAGE_TO_DRAW = images.get(modelManager.getTileAt(i, j));
-                final double xSizeMultiplier = (tileSizeInPixels + 0.0) / IMAGE_TO_DRAW.getWidth(this);
-                final double ySizeMultiplier = (tileSizeInPixels + 0.0) / IMAGE_TO_DRAW.getHeight(this);
-                graphics2D.scale(xSizeMultiplier, ySizeMultiplier);
-                graphics2D.drawImage(images.get(modelManager.getTileAt(i, j)), null, null);
-                graphics2D.scale(1.0 / xSizeMultiplier, 1.0 / ySizeMultiplier);
-                graphics2D.translate(-xToDraw, -yToDraw);
-            }
-        }
+        Rectangle clip = graphics2D.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        final int fromTileX = Math.max(0, (clip.x - xOffset) / tileSizeInPixels);
+        final int fromTileY = Math.max(0, (clip.y - yOffset) / tileSizeInPixels);
+        final int toTileX = Math.min(modelManager.getMapWidth(), (clip.x + clip.width - xOffset + tileSizeInPixels - 1) / tileSizeInPixels);
+        final int toTileY = Math.min(modelManager.getMapHeight(), (clip.y + clip.height - yOffset + tileSizeInPixels - 1) / tileSizeInPixels);
+        tileChunkCache.draw(graphics2D, xOffset, yOffset, fromTileX, fromTileY, toTileX, toTileY, getGraphicsConfiguration());
 
         drawSelectedTileBorder(graphics2D);
+        return Math.max(0, toTileX - fromTileX) * Math.max(0, toTileY - fromTileY);
     }
 
     private void drawSelectedTileBorder(Graphics2D graphics2D) {
@@ -100,23 +152,8 @@ public class WorkingAreaPanel extends JPanel implements Observer {
         }
     }
 
-    private Map<Integer, Image> getLoadedFromFilesImages() {
-        Map<Integer, Image> imagesMap = new HashMap<Integer, Image>();
-        try {
-            Iterator<TileType> iterator = ModelManager.getInstance().getIteratorOfAllTileTypes();
-            while (iterator.hasNext()) {
-                TileType t = iterator.next();
-                imagesMap.put(t.getId(), ImageIO.read(new File(ModelManager.getInstance().getImageDirectoryName() + File.separator + t.getTexture())));
-            }
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        }
-        return imagesMap;
-    }
-
     private void drawBackground(Graphics2D graphics2D) {
-        graphics2D.setColor(Color.DARK_GRAY);
+        graphics2D.setColor(BACKGROUND_COLOR);
         graphics2D.fillRect(0, 0, getWidth(), getHeight());
     }
 
@@ -131,11 +168,22 @@ public class WorkingAreaPanel extends JPanel implements Observer {
             return;
 
         if (selectedX != -1 && selectedY != -1 && modelMgr.getTileAt(selectedX, selectedY) != materialID) {
-            if (!modelMgr.isSmartModeOn())
-                lastMacroCommand.addCommand(modelMgr.new UpdateTileAtCommand(selectedX, selectedY, materialID));
-            else
-                lastMacroCommand.addCommand(modelMgr.new SmartUpdateTileAtCommand(selectedX, selectedY, materialID));
-
+            modelMgr.beginTileChanges();
+            try {
+                if (!modelMgr.isSmartModeOn()) {
+                    if (lastPaintCommand == null) {
+                        lastPaintCommand = modelMgr.new PaintTilesCommand();
+                        lastMacroCommand.addCommand(lastPaintCommand);
+                    }
+                    lastPaintCommand.paintTileAt(selectedX, selectedY, materialID);
+                }
+                else {
+                    lastPaintCommand = null;
+                    lastMacroCommand.addCommand(modelMgr.new SmartUpdateTileAtCommand(selectedX, selectedY, materialID));
+                }
+            } finally {
+                modelMgr.endTileChanges();
+            }
         }
     }
 
@@ -171,7 +219,7 @@ public class WorkingAreaPanel extends JPanel implements Observer {
 
     private void repaintTile(int x, int y) {
         final int tileSizeInPixels = ModelManager.getInstance().getTileSizeInPixels();
-        repaint(xOffset + x * tileSizeInPixels, yOffset + y * tileSizeInPixels, tileSizeInPixels, tileSizeInPixels);
+        repaintScheduler.addDirtyRegion(xOffset + x * tileSizeInPixels, yOffset + y * tileSizeInPixels, tileSizeInPixels, tileSizeInPixels);
     }
 
     private boolean coordinateBounds(int x, int y) {
@@ -205,10 +253,20 @@ public class WorkingAreaPanel extends JPanel implements Observer {
                 int[] args = (int[])updateInfo.getArguments();
                 doUpdate(args[0], args[1]);
                 break;
+            case REGION_UPDATE:
+                int[] region = (int[])updateInfo.getArguments();
+                doUpdate(region[0], region[1], region[2], region[3]);
+                break;
+            case NEW_MODEL:
+                stopOverlayTimer();
+                repaintScheduler.clear();
+                break;
         }
     }
 
     private void doUpdate() {
+        tileChunkCache.invalidateAll();
+        repaintScheduler.clear();
         resizePanel();
         repaint();
     }
@@ -220,9 +278,16 @@ public class WorkingAreaPanel extends JPanel implements Observer {
 
     private void doUpdate(int x, int y) {
 //        resizePanel();
+        tileChunkCache.invalidateTile(x, y);
         repaintTile(x, y);
     }
 
+    private void doUpdate(int x, int y, int width, int height) {
+        final int tileSizeInPixels = ModelManager.getInstance().getTileSizeInPixels();
+        tileChunkCache.invalidateRegion(x, y, width, height);
+        repaintScheduler.addDirtyRegion(xOffset + x * tileSizeInPixels, yOffset + y * tileSizeInPixels, width * tileSizeInPixels, height * tileSizeInPixels);
+    }
+
     public void setScrollPane(JScrollPane pane) {
         scrollPane = pane;
     }
@@ -279,6 +344,7 @@ public class WorkingAreaPanel extends JPanel implements Observer {
                 return;
             }
             WorkingAreaPanel.this.lastMacroCommand = new MacroCommand();
+            WorkingAreaPanel.this.lastPaintCommand = null;
             WorkingAreaPanel.this.handleMouseDown(e.getModifiersEx());
             CommandHandler commandHandler = ModelManager.getInstance();
             commandHandler.performCommand(lastMacroCommand);
@@ -292,6 +358,8 @@ public class WorkingAreaPanel extends JPanel implements Observer {
             if (lastMacroCommand.isEmpty())
                 WorkingAreaPanel.this.handleMouseDown(e.getModifiersEx());
             WorkingAreaPanel.this.lastMacroCommand.perform();
+            if (lastPaintCommand != null)
+                lastPaintCommand.trimToSize();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package editor.model;
+
+public class ArrayTileGrid implements TileGrid {
+    private final int width, height;
+    private final short[] tiles;
+
+    private static final int MAX_TILE_ID = 0xFFFF;
+
+    public ArrayTileGrid(int _width, int _height) {
+        if (_width < 0 || _height < 0)
+            throw new RuntimeException("Illegal tile grid size " + _width + "x" + _height);
+        if ((long) _width * _height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Tile grid of " + _width + "x" + _height + " tiles is too large for the heap, use MappedTileGrid instead");
+        width = _width;
+        height = _height;
+        tiles = new short[_width * _height];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTileAt(int x, int y) {
+        return tiles[indexOf(x, y)] & MAX_TILE_ID;
+    }
+
+    @Override
+    public void setTileAt(int x, int y, int tileID) {
+        tiles[indexOf(x, y)] = toStoredValue(tileID);
+    }
+
+    @Override
+    public void copyRegionTo(TileGrid destination, int fromX, int fromY, int toX, int toY, int regionWidth, int regionHeight) {
+        if (destination instanceof ArrayTileGrid) {
+            ArrayTileGrid arrayDestination = (ArrayTileGrid) destination;
+            for (int j = 0; j < regionHeight; j++)
+                System.arraycopy(tiles, indexOf(fromX, fromY + j), arrayDestination.tiles, arrayDestination.indexOf(toX, toY + j), regionWidth);
+        }
+        else {
+            for (int j = 0; j < regionHeight; j++)
+                for (int i = 0; i < regionWidth; i++)
+                    destination.setTileAt(toX + i, toY + j, getTileAt(fromX + i, fromY + j));
+        }
+    }
+
+    @Override
+    public TileGrid copy() {
+        ArrayTileGrid copy = new ArrayTileGrid(width, height);
+        System.arraycopy(tiles, 0, copy.tiles, 0, tiles.length);
+        return copy;
+    }
+
+    private int indexOf(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Tile (" + x + ", " + y + ") is out of " + width + "x" + height + " grid");
+        return y * width + x;
+    }
+
+    private static short toStoredValue(int tileID) {
+        if (tileID < 0 || tileID > MAX_TILE_ID)
+            throw new RuntimeException("Tile ID=" + tileID + " is out of supported range [0.." + MAX_TILE_ID + "]");
+        return (short) tileID;
+    }
+}
@@ -0,0 +1,103 @@
+package editor.model;
+
+import java.util.Arrays;
+
+public class AutoTileRegion {
+    private final int x, y, width, height;
+    private final boolean[] mask;
+
+    private AutoTileRegion(int _x, int _y, int _width, int _height, boolean[] _mask) {
+        x = _x;
+        y = _y;
+        width = _width;
+        height = _height;
+        mask = _mask;
+    }
+
+    public static AutoTileRegion rectangle(TileGrid tiles, int x, int y, int width, int height) {
+        final int fromX = Math.max(0, x);
+        final int fromY = Math.max(0, y);
+        final int toX = Math.min(tiles.getWidth(), x + width);
+        final int toY = Math.min(tiles.getHeight(), y + height);
+        return new AutoTileRegion(fromX, fromY, Math.max(0, toX - fromX), Math.max(0, toY - fromY), null);
+    }
+
+    public static AutoTileRegion flood(TileGrid tiles, int startX, int startY) {
+        final int mapWidth = tiles.getWidth();
+        final int mapHeight = tiles.getHeight();
+        final int tileID = tiles.getTileAt(startX, startY);
+        boolean[] filled = new boolean[mapWidth * mapHeight];
+        int[] stack = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = startY * mapWidth + startX;
+        filled[startY * mapWidth + startX] = true;
+        int minX = startX, minY = startY, maxX = startX, maxY = startY;
+        while (stackSize > 0) {
+            final int cell = stack[--stackSize];
+            final int cellX = cell % mapWidth;
+            final int cellY = cell / mapWidth;
+            minX = Math.min(minX, cellX);
+            maxX = Math.max(maxX, cellX);
+            minY = Math.min(minY, cellY);
+            maxY = Math.max(maxY, cellY);
+            for (int direction = 0; direction < 4; direction++) {
+                final int nextX = cellX + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                final int nextY = cellY + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                if (nextX < 0 || nextX >= mapWidth || nextY < 0 || nextY >= mapHeight)
+                    continue;
+                final int next = nextY * mapWidth + nextX;
+                if (filled[next] || tiles.getTileAt(nextX, nextY) != tileID)
+                    continue;
+                filled[next] = true;
+                if (stackSize == stack.length)
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                stack[stackSize++] = next;
+            }
+        }
+
+        // the seams lie on the ring of tiles around the flooded area, so it is part of the region too
+        final int fromX = Math.max(0, minX - 1);
+        final int fromY = Math.max(0, minY - 1);
+        final int toX = Math.min(mapWidth - 1, maxX + 1);
+        final int toY = Math.min(mapHeight - 1, maxY + 1);
+        final int width = toX - fromX + 1;
+        final int height = toY - fromY + 1;
+        boolean[] mask = new boolean[width * height];
+        for (int j = fromY; j <= toY; j++) {
+            for (int i = fromX; i <= toX; i++) {
+                boolean isInRegion = false;
+                for (int dj = -1; dj <= 1 && !isInRegion; dj++)
+                    for (int di = -1; di <= 1 && !isInRegion; di++) {
+                        final int neighbourX = i + di;
+                        final int neighbourY = j + dj;
+                        isInRegion = neighbourX >= 0 && neighbourX < mapWidth && neighbourY >= 0 && neighbourY < mapHeight
+                                && filled[neighbourY * mapWidth + neighbourX];
+                    }
+                mask[(j - fromY) * width + (i - fromX)] = isInRegion;
+            }
+        }
+        return new AutoTileRegion(fromX, fromY, width, height, mask);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean contains(int _x, int _y) {
+        if (_x < x || _x >= x + width || _y < y || _y >= y + height)
+            return false;
+        return mask == null || mask[(_y - y) * width + (_x - x)];
+    }
+}
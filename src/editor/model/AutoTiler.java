@@ -0,0 +1,295 @@
+package editor.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AutoTiler {
+    private final TileAdjacencyMatrix matrix;
+    private final int wordCount;
+    private final int[][] supportClassOfTile;
+    private final long[][][] supportClasses;
+
+    private static final int NORTH = 0, SOUTH = 1, WEST = 2, EAST = 3;
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int[] OPPOSITE = {SOUTH, NORTH, EAST, WEST};
+    private static final TileType.Side[][] SIDES = {
+            {TileType.Side.NNW, TileType.Side.NNE},
+            {TileType.Side.SSW, TileType.Side.SSE},
+            {TileType.Side.WNW, TileType.Side.WSW},
+            {TileType.Side.ENE, TileType.Side.ESE}
+    };
+
+    public AutoTiler(TileAdjacencyMatrix _matrix) {
+        matrix = _matrix;
+        wordCount = _matrix.getWordCount();
+        final int tileCount = _matrix.getTileCount();
+        supportClassOfTile = new int[4][tileCount];
+        supportClasses = new long[4][][];
+        for (int direction = 0; direction < 4; direction++) {
+            Map<TileSetKey, Integer> classes = new HashMap<TileSetKey, Integer>();
+            List<long[]> classTiles = new ArrayList<long[]>();
+            for (int index = 0; index < tileCount; index++) {
+                long[] supported = _matrix.createTileSet();
+                _matrix.fillWithAllTiles(supported);
+                _matrix.retainApplicable(index, SIDES[direction][0], SIDES[direction][1], supported);
+                TileSetKey key = new TileSetKey(supported);
+                Integer supportClass = classes.get(key);
+                if (supportClass == null) {
+                    supportClass = classTiles.size();
+                    classes.put(key, supportClass);
+                    classTiles.add(supported);
+                }
+                supportClassOfTile[direction][index] = supportClass;
+            }
+            supportClasses[direction] = classTiles.toArray(new long[classTiles.size()][]);
+        }
+    }
+
+    public Result solve(TileGrid tiles, AutoTileRegion region) {
+        final int regionX = region.getX();
+        final int regionY = region.getY();
+        final int regionWidth = region.getWidth();
+        final int regionHeight = region.getHeight();
+        final int cellCount = regionWidth * regionHeight;
+        final long[] domains = new long[cellCount * wordCount];
+        final boolean[] isInRegion = new boolean[cellCount];
+        final long[] support = new long[wordCount];
+        final int[] classStamps = new int[maxSupportClassCount()];
+        final int[] stamp = new int[1];
+        final CellQueue queue = new CellQueue(cellCount);
+        int conflicts = 0;
+
+        for (int j = 0; j < regionHeight; j++) {
+            for (int i = 0; i < regionWidth; i++) {
+                final int cell = j * regionWidth + i;
+                isInRegion[cell] = region.contains(regionX + i, regionY + j);
+                if (!isInRegion[cell])
+                    continue;
+                final int domainOffset = cell * wordCount;
+                matrix.fillWithAllTiles(support);
+                System.arraycopy(support, 0, domains, domainOffset, wordCount);
+                for (int direction = 0; direction < 4; direction++) {
+                    final int neighbourX = regionX + i + DX[direction];
+                    final int neighbourY = regionY + j + DY[direction];
+                    if (neighbourX < 0 || neighbourX >= tiles.getWidth() || neighbourY < 0 || neighbourY >= tiles.getHeight())
+                        continue;
+                    if (region.contains(neighbourX, neighbourY))
+                        continue;
+                    final int neighbourIndex = matrix.indexOf(tiles.getTileAt(neighbourX, neighbourY));
+                    if (neighbourIndex < 0)
+                        continue;
+                    final long[] supported = supportClasses[OPPOSITE[direction]][supportClassOfTile[OPPOSITE[direction]][neighbourIndex]];
+                    if (!retain(domains, domainOffset, supported))
+                        conflicts++;
+                }
+                queue.add(cell);
+            }
+        }
+        conflicts += propagate(domains, isInRegion, regionWidth, regionHeight, queue, support, classStamps, stamp);
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (!isInRegion[cell])
+                continue;
+            final int domainOffset = cell * wordCount;
+            if (countTiles(domains, domainOffset) <= 1)
+                continue;
+            final int currentIndex = matrix.indexOf(tiles.getTileAt(regionX + cell % regionWidth, regionY + cell / regionWidth));
+            int chosenIndex = currentIndex;
+            if (!containsTile(domains, domainOffset, chosenIndex))
+                chosenIndex = firstTile(domains, domainOffset);
+            Arrays.fill(domains, domainOffset, domainOffset + wordCount, 0L);
+            domains[domainOffset + (chosenIndex >>> 6)] = 1L << chosenIndex;
+            queue.add(cell);
+            conflicts += propagate(domains, isInRegion, regionWidth, regionHeight, queue, support, classStamps, stamp);
+        }
+
+        Result result = new Result(conflicts);
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (!isInRegion[cell])
+                continue;
+            final int chosenIndex = firstTile(domains, cell * wordCount);
+            if (chosenIndex < 0)
+                continue;
+            final int x = regionX + cell % regionWidth;
+            final int y = regionY + cell / regionWidth;
+            final int oldTileID = tiles.getTileAt(x, y);
+            final int newTileID = matrix.getTileIdAt(chosenIndex);
+            if (oldTileID != newTileID)
+                result.add(x, y, oldTileID, newTileID);
+        }
+        result.getDeltas().trimToSize();
+        return result;
+    }
+
+    private int propagate(long[] domains, boolean[] isInRegion, int regionWidth, int regionHeight, CellQueue queue, long[] support, int[] classStamps, int[] stamp) {
+        int conflicts = 0;
+        while (!queue.isEmpty()) {
+            final int cell = queue.poll();
+            final int cellX = cell % regionWidth;
+            final int cellY = cell / regionWidth;
+            final int domainOffset = cell * wordCount;
+            for (int direction = 0; direction < 4; direction++) {
+                final int neighbourX = cellX + DX[direction];
+                final int neighbourY = cellY + DY[direction];
+                if (neighbourX < 0 || neighbourX >= regionWidth || neighbourY < 0 || neighbourY >= regionHeight)
+                    continue;
+                final int neighbour = neighbourY * regionWidth + neighbourX;
+                if (!isInRegion[neighbour])
+                    continue;
+                Arrays.fill(support, 0L);
+                stamp[0]++;
+                final int[] supportClassOfTileInDirection = supportClassOfTile[direction];
+                final long[][] supportClassesInDirection = supportClasses[direction];
+                for (int k = 0; k < wordCount; k++) {
+                    long word = domains[domainOffset + k];
+                    while (word != 0) {
+                        final int index = (k << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        final int supportClass = supportClassOfTileInDirection[index];
+                        if (classStamps[supportClass] == stamp[0])
+                            continue;
+                        classStamps[supportClass] = stamp[0];
+                        final long[] supported = supportClassesInDirection[supportClass];
+                        for (int w = 0; w < wordCount; w++)
+                            support[w] |= supported[w];
+                    }
+                }
+                final int neighbourOffset = neighbour * wordCount;
+                boolean isChanged = false;
+                boolean isEmpty = true;
+                for (int w = 0; w < wordCount; w++) {
+                    final long retained = domains[neighbourOffset + w] & support[w];
+                    isChanged |= retained != domains[neighbourOffset + w];
+                    isEmpty &= retained == 0;
+                }
+                if (!isChanged)
+                    continue;
+                if (isEmpty) {
+                    conflicts++;
+                    continue;
+                }
+                for (int w = 0; w < wordCount; w++)
+                    domains[neighbourOffset + w] &= support[w];
+                queue.add(neighbour);
+            }
+        }
+        return conflicts;
+    }
+
+    private boolean retain(long[] domains, int domainOffset, long[] supported) {
+        boolean isEmpty = true;
+        for (int w = 0; w < wordCount; w++)
+            isEmpty &= (domains[domainOffset + w] & supported[w]) == 0;
+        if (isEmpty)
+            return false;
+        for (int w = 0; w < wordCount; w++)
+            domains[domainOffset + w] &= supported[w];
+        return true;
+    }
+
+    private int countTiles(long[] domains, int domainOffset) {
+        int count = 0;
+        for (int w = 0; w < wordCount; w++)
+            count += Long.bitCount(domains[domainOffset + w]);
+        return count;
+    }
+
+    private boolean containsTile(long[] domains, int domainOffset, int index) {
+        return index >= 0 && (domains[domainOffset + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    private int firstTile(long[] domains, int domainOffset) {
+        for (int w = 0; w < wordCount; w++)
+            if (domains[domainOffset + w] != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(domains[domainOffset + w]);
+        return -1;
+    }
+
+    private int maxSupportClassCount() {
+        int max = 0;
+        for (long[][] classes : supportClasses)
+            max = Math.max(max, classes.length);
+        return max;
+    }
+
+    public static class Result {
+        private final TileDeltas deltas;
+        private final int conflicts;
+
+        private Result(int _conflicts) {
+            conflicts = _conflicts;
+            deltas = new TileDeltas();
+        }
+
+        private void add(int x, int y, int oldTileID, int newTileID) {
+            deltas.add(x, y, oldTileID, newTileID);
+        }
+
+        public int getChangedTileCount() {
+            return deltas.getChangeCount();
+        }
+
+        public int getConflictCount() {
+            return conflicts;
+        }
+
+        public TileDeltas getDeltas() {
+            return deltas;
+        }
+    }
+
+    private static class CellQueue {
+        private final int[] cells;
+        private final boolean[] isQueued;
+        private int head, size;
+
+        public CellQueue(int capacity) {
+            cells = new int[Math.max(1, capacity)];
+            isQueued = new boolean[Math.max(1, capacity)];
+        }
+
+        public void add(int cell) {
+            if (isQueued[cell])
+                return;
+            isQueued[cell] = true;
+            cells[(head + size) % cells.length] = cell;
+            size++;
+        }
+
+        public int poll() {
+            final int cell = cells[head];
+            head = (head + 1) % cells.length;
+            size--;
+            isQueued[cell] = false;
+            return cell;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    private static class TileSetKey {
+        private final long[] tiles;
+        private final int hashCode;
+
+        public TileSetKey(long[] _tiles) {
+            tiles = _tiles;
+            hashCode = Arrays.hashCode(_tiles);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TileSetKey && Arrays.equals(tiles, ((TileSetKey) o).tiles);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package editor.model;
+
+public class BinaryMapFormat {
+    private BinaryMapFormat() { }
+
+    public static final String FILE_EXTENSION = ".bmap";
+    public static final int MAGIC = 0x53434D50;
+    public static final short VERSION = 1;
+    public static final byte COMPRESSION_NONE = 0;
+    public static final byte COMPRESSION_DEFLATE = 1;
+
+    public static boolean isBinaryMapFile(String fileName) {
+        return fileName.toLowerCase().endsWith(FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,90 @@
+package editor.model;
+
+import java.io.*;
+import java.util.concurrent.CancellationException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class BinaryMapReader {
+    private final boolean[] knownTileIDs;
+    private final String configName;
+    private MapProgressListener progressListener;
+
+    public BinaryMapReader(boolean[] _knownTileIDs, String _configName) {
+        knownTileIDs = _knownTileIDs;
+        configName = _configName;
+    }
+
+    public void setProgressListener(MapProgressListener _progressListener) {
+        progressListener = _progressListener;
+    }
+
+    public TileGrid read(InputStream inputStream) throws IOException {
+        return read(inputStream, null);
+    }
+
+    public TileGrid read(InputStream inputStream, TileGrid destination) throws IOException {
+        DataInputStream header = new DataInputStream(inputStream);
+        if (header.readInt() != BinaryMapFormat.MAGIC)
+            throw new RuntimeException("Not a binary map file!");
+        final short version = header.readShort();
+        if (version != BinaryMapFormat.VERSION)
+            throw new RuntimeException("Unsupported binary map version " + version + "!");
+        final byte compression = header.readByte();
+        final int width = header.readInt();
+        final int height = header.readInt();
+        if (destination != null && (destination.getWidth() != width || destination.getHeight() != height))
+            throw new IOException("Map of " + width + "x" + height + " tiles doesn't fit into " + destination.getWidth() + "x" + destination.getHeight() + " grid");
+        final String mapConfigName = header.readUTF();
+        if (configName != null && mapConfigName.length() > 0 && !mapConfigName.equals(configName))
+            throw new IOException("Map belongs to configuration \"" + mapConfigName + "\", not to \"" + configName + "\"");
+        final int paletteSize = header.readInt();
+        int[] palette = new int[paletteSize];
+        for (int k = 0; k < paletteSize; k++) {
+            final int tileTypeID = header.readUnsignedShort();
+            if (knownTileIDs != null && (tileTypeID >= knownTileIDs.length || !knownTileIDs[tileTypeID]))
+                throw new RuntimeException("No such tile type with ID=" + tileTypeID + " exists in currentConfig \"" + configName + "\"!");
+            palette[k] = tileTypeID;
+        }
+        final int bytesPerIndex = header.readUnsignedByte();
+        if (bytesPerIndex != 1 && bytesPerIndex != 2)
+            throw new IOException("Unsupported palette index size of " + bytesPerIndex + " bytes");
+
+        Inflater inflater = null;
+        DataInputStream payload;
+        if (compression == BinaryMapFormat.COMPRESSION_DEFLATE) {
+            inflater = new Inflater();
+            payload = new DataInputStream(new InflaterInputStream(inputStream, inflater, 1 << 16));
+        }
+        else if (compression == BinaryMapFormat.COMPRESSION_NONE)
+            payload = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        else
+            throw new RuntimeException("Unsupported binary map compression " + compression + "!");
+        TileGrid tiles = destination != null ? destination : new ArrayTileGrid(width, height);
+        byte[] row = new byte[width * bytesPerIndex];
+        try {
+            for (int j = 0; j < height; j++) {
+                payload.readFully(row);
+                for (int i = 0; i < width; i++) {
+                    int paletteIndex;
+                    if (bytesPerIndex == 1)
+                        paletteIndex = row[i] & 0xFF;
+                    else
+                        paletteIndex = ((row[2 * i] & 0xFF) << 8) | (row[2 * i + 1] & 0xFF);
+                    if (paletteIndex >= paletteSize)
+                        throw new RuntimeException("Palette index " + paletteIndex + " is out of palette of size " + paletteSize + "!");
+                    tiles.setTileAt(i, j, palette[paletteIndex]);
+                }
+                if (progressListener != null) {
+                    progressListener.progressChanged(j + 1, height);
+                    if (progressListener.isCancelled())
+                        throw new CancellationException("Map reading was cancelled");
+                }
+            }
+        } finally {
+            if (inflater != null)
+                inflater.end();
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,106 @@
+package editor.model;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+public class BinaryMapWriter {
+    private final String configName;
+    private final boolean isCompressed;
+    private MapProgressListener progressListener;
+
+    public BinaryMapWriter(String _configName, boolean _isCompressed) {
+        configName = _configName;
+        isCompressed = _isCompressed;
+    }
+
+    public void setProgressListener(MapProgressListener _progressListener) {
+        progressListener = _progressListener;
+    }
+
+    public void write(TileGrid tiles, OutputStream outputStream) throws IOException {
+        final int width = tiles.getWidth();
+        final int height = tiles.getHeight();
+        int[] tileIdToPaletteIndex = new int[0x10000];
+        Arrays.fill(tileIdToPaletteIndex, -1);
+        int[] palette = new int[16];
+        int paletteSize = 0;
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                final int tileID = tiles.getTileAt(i, j);
+                if (tileIdToPaletteIndex[tileID] < 0) {
+                    if (paletteSize == palette.length)
+                        palette = Arrays.copyOf(palette, paletteSize * 2);
+                    palette[paletteSize] = tileID;
+                    tileIdToPaletteIndex[tileID] = paletteSize++;
+                }
+            }
+        }
+        final int bytesPerIndex = paletteSize <= 0x100 ? 1 : 2;
+
+        DataOutputStream header = new DataOutputStream(outputStream);
+        header.writeInt(BinaryMapFormat.MAGIC);
+        header.writeShort(BinaryMapFormat.VERSION);
+        header.writeByte(isCompressed ? BinaryMapFormat.COMPRESSION_DEFLATE : BinaryMapFormat.COMPRESSION_NONE);
+        header.writeInt(width);
+        header.writeInt(height);
+        header.writeUTF(configName == null ? "" : configName);
+        header.writeInt(paletteSize);
+        for (int k = 0; k < paletteSize; k++)
+            header.writeShort(palette[k]);
+        header.writeByte(bytesPerIndex);
+        header.flush();
+
+        Deflater deflater = null;
+        OutputStream payload;
+        if (isCompressed) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            payload = new DeflaterOutputStream(new NonClosingOutputStream(outputStream), deflater, 1 << 16);
+        }
+        else
+            payload = new BufferedOutputStream(new NonClosingOutputStream(outputStream), 1 << 16);
+        byte[] row = new byte[width * bytesPerIndex];
+        try {
+            for (int j = 0; j < height; j++) {
+                for (int i = 0; i < width; i++) {
+                    final int paletteIndex = tileIdToPaletteIndex[tiles.getTileAt(i, j)];
+                    if (bytesPerIndex == 1)
+                        row[i] = (byte) paletteIndex;
+                    else {
+                        row[2 * i] = (byte) (paletteIndex >>> 8);
+                        row[2 * i + 1] = (byte) paletteIndex;
+                    }
+                }
+                payload.write(row);
+                if (progressListener != null) {
+                    progressListener.progressChanged(j + 1, height);
+                    if (progressListener.isCancelled())
+                        throw new CancellationException("Map writing was cancelled");
+                }
+            }
+            payload.close();
+        } finally {
+            if (deflater != null)
+                deflater.end();
+        }
+        outputStream.flush();
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        public NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package editor.model;
 public interface CommandHandler {
     public void performCommand(Command command);
     public void undoLastCommand();
+    public void redoLastCommand();
     public void clearCommandHistory();
     public int getCommandHistorySize();
+    public int getRedoHistorySize();
 }
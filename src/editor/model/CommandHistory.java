@@ -0,0 +1,74 @@
+package editor.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class CommandHistory {
+    private final Deque<Command> commands;
+    private final Deque<Long> settledSizes;
+    private long settledSizeInBytes;
+    private long memoryLimitInBytes;
+
+    private static final long UNSIZED_COMMAND_SIZE_IN_BYTES = 64;
+
+    public CommandHistory(long _memoryLimitInBytes) {
+        commands = new ArrayDeque<Command>();
+        settledSizes = new ArrayDeque<Long>();
+        memoryLimitInBytes = _memoryLimitInBytes;
+    }
+
+    public static long getSizeInBytes(Command command) {
+        if (command instanceof SizedCommand)
+            return ((SizedCommand) command).getSizeInBytes();
+        return UNSIZED_COMMAND_SIZE_IN_BYTES;
+    }
+
+    public void add(Command command) {
+        if (!commands.isEmpty()) {
+            final long lastSize = getSizeInBytes(commands.peekLast());
+            settledSizes.addLast(lastSize);
+            settledSizeInBytes += lastSize;
+        }
+        commands.addLast(command);
+        evictOldest();
+    }
+
+    public Command removeLast() {
+        if (commands.isEmpty())
+            return null;
+        Command command = commands.pollLast();
+        if (!settledSizes.isEmpty())
+            settledSizeInBytes -= settledSizes.pollLast();
+        return command;
+    }
+
+    public void clear() {
+        commands.clear();
+        settledSizes.clear();
+        settledSizeInBytes = 0;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    public long getSizeInBytes() {
+        return commands.isEmpty() ? 0 : settledSizeInBytes + getSizeInBytes(commands.peekLast());
+    }
+
+    public long getMemoryLimitInBytes() {
+        return memoryLimitInBytes;
+    }
+
+    public void setMemoryLimitInBytes(long _memoryLimitInBytes) {
+        memoryLimitInBytes = _memoryLimitInBytes;
+        evictOldest();
+    }
+
+    public void evictOldest() {
+        while (commands.size() > 1 && getSizeInBytes() > memoryLimitInBytes) {
+            commands.pollFirst();
+            settledSizeInBytes -= settledSizes.pollFirst();
+        }
+    }
+}
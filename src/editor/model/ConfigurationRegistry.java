@@ -0,0 +1,56 @@
+package editor.model;
+
+import java.io.File;
+import java.util.*;
+
+public class ConfigurationRegistry {
+    private final String configurationDirectory;
+    private final String tileTypeFileName;
+    private final List<String> configurations;
+    private final LinkedHashMap<String, TileSet> tileSets;
+
+    private static final int MAX_CACHED_TILE_SETS = 8;
+
+    public ConfigurationRegistry(String _configurationDirectory, String _tileTypeFileName) {
+        configurationDirectory = _configurationDirectory;
+        tileTypeFileName = _tileTypeFileName;
+        configurations = Collections.unmodifiableList(readConfigurations());
+        tileSets = new LinkedHashMap<String, TileSet>(MAX_CACHED_TILE_SETS + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TileSet> eldest) {
+                return size() > MAX_CACHED_TILE_SETS;
+            }
+        };
+    }
+
+    private List<String> readConfigurations() {
+        List<String> configs = new ArrayList<String>();
+        File root = new File(configurationDirectory);
+        for (File f : root.listFiles()) {
+            if (f.isDirectory())
+                configs.add(f.getName());
+        }
+        return configs;
+    }
+
+    public String getConfigurationDirectory() {
+        return configurationDirectory;
+    }
+
+    public String getTileTypeFileName() {
+        return tileTypeFileName;
+    }
+
+    public List<String> getConfigurations() {
+        return configurations;
+    }
+
+    public synchronized TileSet getTileSet(String configName) {
+        TileSet tileSet = tileSets.get(configName);
+        if (tileSet == null) {
+            tileSet = TileSet.loadFromJson(configurationDirectory + File.separator + configName + File.separator + tileTypeFileName);
+            tileSets.put(configName, tileSet);
+        }
+        return tileSet;
+    }
+}
@@ -0,0 +1,78 @@
+package editor.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.CancellationException;
+
+public class JsonMapReader {
+    private final boolean[] knownTileIDs;
+    private final String configName;
+    private MapProgressListener progressListener;
+
+    public JsonMapReader(boolean[] _knownTileIDs, String _configName) {
+        knownTileIDs = _knownTileIDs;
+        configName = _configName;
+    }
+
+    public void setProgressListener(MapProgressListener _progressListener) {
+        progressListener = _progressListener;
+    }
+
+    public TileGrid read(Reader reader) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        int width = -1, height = -1;
+        TileGrid tiles = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (name.equals("width"))
+                width = jsonReader.nextInt();
+            else if (name.equals("height"))
+                height = jsonReader.nextInt();
+            else if (name.equals("tiles")) {
+                if (width < 0 || height < 0)
+                    throw new RuntimeException("Map \"width\" and \"height\" must be defined before \"tiles\"!");
+                tiles = readTiles(jsonReader, width, height);
+            }
+            else
+                jsonReader.skipValue();
+        }
+        jsonReader.endObject();
+        if (tiles == null)
+            throw new RuntimeException("No \"tiles\" found in map!");
+        return tiles;
+    }
+
+    private TileGrid readTiles(JsonReader jsonReader, int width, int height) throws IOException {
+        TileGrid tiles = new ArrayTileGrid(width, height);
+        jsonReader.beginArray();
+        for (int i = 0; i < width; i++) {
+            if (!jsonReader.hasNext())
+                throw new RuntimeException("Map has less than " + width + " columns!");
+            jsonReader.beginArray();
+            for (int j = 0; j < height; j++) {
+                if (jsonReader.peek() != JsonToken.NUMBER)
+                    throw new RuntimeException("Map column " + i + " has less than " + height + " tiles!");
+                final int tileTypeID = jsonReader.nextInt();
+                if (knownTileIDs != null && (tileTypeID < 0 || tileTypeID >= knownTileIDs.length || !knownTileIDs[tileTypeID]))
+                    throw new RuntimeException("No such tile type with ID=" + tileTypeID + " exists in currentConfig \"" + configName + "\"!");
+                tiles.setTileAt(i, j, tileTypeID);
+            }
+            while (jsonReader.hasNext())
+                jsonReader.skipValue();
+            jsonReader.endArray();
+            if (progressListener != null) {
+                progressListener.progressChanged(i + 1, width);
+                if (progressListener.isCancelled())
+                    throw new CancellationException("Map reading was cancelled");
+            }
+        }
+        while (jsonReader.hasNext())
+            jsonReader.skipValue();
+        jsonReader.endArray();
+        return tiles;
+    }
+}
@@ -0,0 +1,59 @@
+package editor.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CancellationException;
+
+public class JsonMapWriter {
+    private final StringBuilder rowBuilder;
+    private char[] rowBuffer;
+    private MapProgressListener progressListener;
+
+    public JsonMapWriter() {
+        rowBuilder = new StringBuilder();
+        rowBuffer = new char[0];
+    }
+
+    public void setProgressListener(MapProgressListener _progressListener) {
+        progressListener = _progressListener;
+    }
+
+    public void write(TileGrid tiles, Writer writer) throws IOException {
+        final int width = tiles.getWidth();
+        final int height = tiles.getHeight();
+        writer.write("{\n");
+        writer.write("\"width\" : " + width + ",\n");
+        writer.write("\"height\" : " + height + ",\n");
+        writer.write("\"tiles\" : [");
+        for (int i = 0; i < width; i++) {
+            rowBuilder.setLength(0);
+            if (i > 0)
+                rowBuilder.append("],\n\t");
+            rowBuilder.append('[');
+            for (int j = 0; j < height; j++) {
+                if (j > 0)
+                    rowBuilder.append(',');
+                rowBuilder.append(tiles.getTileAt(i, j));
+            }
+            writeRow(writer);
+            if (progressListener != null) {
+                progressListener.progressChanged(i + 1, width);
+                if (progressListener.isCancelled())
+                    throw new CancellationException("Map writing was cancelled");
+            }
+        }
+        if (width > 0)
+            writer.write(']');
+        writer.write("]\n");
+        writer.write('}');
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer) throws IOException {
+        final int length = rowBuilder.length();
+        if (rowBuffer.length < length)
+            rowBuffer = new char[length];
+        rowBuilder.getChars(0, length, rowBuffer, 0);
+        writer.write(rowBuffer, 0, length);
+    }
+}
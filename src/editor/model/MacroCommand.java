@@ -3,8 +3,9 @@ package editor.model;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MacroCommand implements Command {
+public class MacroCommand implements SizedCommand {
     private List<Command> commands;
+    private boolean isUndone;
 
     public MacroCommand() {
         commands = new ArrayList<Command>();
@@ -21,14 +22,25 @@ public class MacroCommand implements Command {
 
     @Override
     public void perform() {
-
+        if (isUndone) {
+            for (Command command : commands)
+                command.perform();
+            isUndone = false;
+        }
     }
 
     @Override
     public void undo() {
-        for (int i = commands.size() - 1; i > -1; i--) {
+        for (int i = commands.size() - 1; i > -1; i--)
             commands.get(i).undo();
-            commands.remove(i);
-        }
+        isUndone = true;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        long size = 32 + 4L * commands.size();
+        for (Command command : commands)
+            size += CommandHistory.getSizeInBytes(command);
+        return size;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package editor.model;
+
+import java.io.*;
+import java.nio.channels.Channels;
+
+public class MapFiles {
+    private MapFiles() { }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    public static boolean isMapFile(String fileName) {
+        return fileName.toLowerCase().endsWith(".json") || BinaryMapFormat.isBinaryMapFile(fileName)
+                || MappedTileGrid.isMappedMapFile(fileName);
+    }
+
+    public static TileGrid read(File file, boolean[] knownTileIDs, String configName, MapProgressListener progressListener) throws IOException {
+        if (MappedTileGrid.isMappedMapFile(file.getName()))
+            return MappedTileGrid.open(file);
+        else if (BinaryMapFormat.isBinaryMapFile(file.getName()))
+            return readBinary(file, knownTileIDs, configName, progressListener);
+        else
+            return readJson(file, knownTileIDs, configName, progressListener);
+    }
+
+    private static TileGrid readJson(File file, boolean[] knownTileIDs, String configName, MapProgressListener progressListener) throws IOException {
+        Reader r = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"), BUFFER_SIZE);
+        try {
+            JsonMapReader jsonMapReader = new JsonMapReader(knownTileIDs, configName);
+            jsonMapReader.setProgressListener(progressListener);
+            return jsonMapReader.read(r);
+        } finally {
+            r.close();
+        }
+    }
+
+    private static TileGrid readBinary(File file, boolean[] knownTileIDs, String configName, MapProgressListener progressListener) throws IOException {
+        InputStream is = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            BinaryMapReader binaryMapReader = new BinaryMapReader(knownTileIDs, configName);
+            binaryMapReader.setProgressListener(progressListener);
+            return binaryMapReader.read(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    public static void write(TileGrid tiles, File file, String configName, MapProgressListener progressListener) throws IOException {
+        File temporaryFile = new File(file.getAbsolutePath() + TEMPORARY_FILE_SUFFIX);
+        boolean isWritten = false;
+        try {
+            writeDirectly(tiles, temporaryFile, file.getName(), configName, progressListener);
+            if (file.exists() && !file.delete())
+                throw new IOException("can't replace existing file \"" + file.getAbsolutePath() + "\"");
+            if (!temporaryFile.renameTo(file))
+                throw new IOException("can't rename \"" + temporaryFile.getName() + "\"");
+            isWritten = true;
+        } finally {
+            if (!isWritten)
+                temporaryFile.delete();
+        }
+    }
+
+    private static void writeDirectly(TileGrid tiles, File file, String formatFileName, String configName, MapProgressListener progressListener) throws IOException {
+        if (MappedTileGrid.isMappedMapFile(formatFileName))
+            writeMapped(tiles, file);
+        else if (BinaryMapFormat.isBinaryMapFile(formatFileName))
+            writeBinary(tiles, file, configName, progressListener);
+        else
+            writeJson(tiles, file, progressListener);
+    }
+
+    private static void writeMapped(TileGrid tiles, File file) throws IOException {
+        MappedTileGrid mappedTiles = MappedTileGrid.create(file, tiles.getWidth(), tiles.getHeight());
+        try {
+            tiles.copyRegionTo(mappedTiles, 0, 0, 0, 0, tiles.getWidth(), tiles.getHeight());
+        } finally {
+            mappedTiles.close();
+        }
+    }
+
+    private static void writeBinary(TileGrid tiles, File file, String configName, MapProgressListener progressListener) throws IOException {
+        OutputStream os = new FileOutputStream(file);
+        try {
+            BinaryMapWriter binaryMapWriter = new BinaryMapWriter(configName, true);
+            binaryMapWriter.setProgressListener(progressListener);
+            binaryMapWriter.write(tiles, os);
+        } finally {
+            os.close();
+        }
+    }
+
+    private static void writeJson(TileGrid tiles, File file, MapProgressListener progressListener) throws IOException {
+        Writer w = new BufferedWriter(Channels.newWriter(new FileOutputStream(file).getChannel(), "UTF-8"), BUFFER_SIZE);
+        try {
+            JsonMapWriter jsonMapWriter = new JsonMapWriter();
+            jsonMapWriter.setProgressListener(progressListener);
+            jsonMapWriter.write(tiles, w);
+        } finally {
+            w.close();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package editor.model;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class MapJournal {
+    private final File directory;
+    private final String configName;
+    private final BlockingQueue<Object> pendingEntries;
+    private final Thread writerThread;
+    private int[] pendingTiles;
+    private int pendingTileCount;
+    private volatile boolean isFailed;
+
+    private TileGridSnapshot compactedTiles;
+    private String mapPath;
+    private int generation;
+    private FileOutputStream journalFileOutput;
+    private DataOutputStream journalOutput;
+
+    public static final String JOURNAL_FILE_NAME = "map.journal";
+    public static final String SNAPSHOT_FILE_NAME = "map.snapshot";
+    public static final String BACKUP_FILE_SUFFIX = ".bak";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int JOURNAL_MAGIC = 0x53434D4A;
+    private static final int SNAPSHOT_MAGIC = 0x53434D53;
+    private static final short VERSION = 2;
+    private static final byte RECORD_TILES = 1;
+    private static final byte RECORD_MAP_PATH = 2;
+    private static final int COMPACTION_THRESHOLD_IN_BYTES = 16 << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Object CLOSE = new Object();
+
+    public MapJournal(File _directory, String _configName) {
+        directory = _directory;
+        configName = _configName;
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new RuntimeException("Can't create journal directory \"" + directory.getAbsolutePath() + "\"!");
+        pendingEntries = new LinkedBlockingQueue<Object>();
+        pendingTiles = new int[3 * 64];
+        generation = (int) System.nanoTime();
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEntries();
+            }
+        }, "map-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public static File keepAside(File directory) {
+        File snapshotFile = new File(directory, SNAPSHOT_FILE_NAME);
+        if (!snapshotFile.isFile())
+            snapshotFile = new File(directory, SNAPSHOT_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+        if (!snapshotFile.isFile())
+            return null;
+        int k = 1;
+        while (new File(directory, SNAPSHOT_FILE_NAME + "." + k + BACKUP_FILE_SUFFIX).exists() || new File(directory, JOURNAL_FILE_NAME + "." + k + BACKUP_FILE_SUFFIX).exists())
+            k++;
+        File keptSnapshotFile = new File(directory, SNAPSHOT_FILE_NAME + "." + k + BACKUP_FILE_SUFFIX);
+        if (!snapshotFile.renameTo(keptSnapshotFile))
+            throw new RuntimeException("Can't keep journal snapshot \"" + snapshotFile.getAbsolutePath() + "\" as \"" + keptSnapshotFile.getName() + "\"!");
+        File journalFile = new File(directory, JOURNAL_FILE_NAME);
+        if (journalFile.exists() && !journalFile.renameTo(new File(directory, JOURNAL_FILE_NAME + "." + k + BACKUP_FILE_SUFFIX)))
+            throw new RuntimeException("Can't keep journal \"" + journalFile.getAbsolutePath() + "\"!");
+        return keptSnapshotFile;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public static boolean hasRecoverableMap(File directory) {
+        return new File(directory, SNAPSHOT_FILE_NAME).isFile() || new File(directory, SNAPSHOT_FILE_NAME + TEMPORARY_FILE_SUFFIX).isFile();
+    }
+
+    public void recordTile(int x, int y, int tileID) {
+        if (pendingTileCount * 3 == pendingTiles.length)
+            pendingTiles = Arrays.copyOf(pendingTiles, pendingTiles.length * 2);
+        final int offset = pendingTileCount * 3;
+        pendingTiles[offset] = x;
+        pendingTiles[offset + 1] = y;
+        pendingTiles[offset + 2] = tileID;
+        pendingTileCount++;
+    }
+
+    public void commit() {
+        if (pendingTileCount == 0)
+            return;
+        if (!isFailed)
+            pendingEntries.add(new TileRecords(pendingTiles, pendingTileCount));
+        pendingTiles = new int[Math.max(3 * 64, pendingTileCount * 3)];
+        pendingTileCount = 0;
+    }
+
+    public void recordMapPath(String _mapPath) {
+        commit();
+        if (!isFailed)
+            pendingEntries.add(new MapPathRecord(_mapPath));
+    }
+
+    public void checkpoint(TileGrid tiles, String _mapPath) {
+        pendingTileCount = 0;
+        if (!isFailed)
+            pendingEntries.add(new Checkpoint(tiles.copy(), _mapPath));
+    }
+
+    public void close(boolean isDiscarded) {
+        commit();
+        pendingEntries.add(CLOSE);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (isDiscarded) {
+            new File(directory, JOURNAL_FILE_NAME).delete();
+            new File(directory, SNAPSHOT_FILE_NAME).delete();
+            new File(directory, SNAPSHOT_FILE_NAME + TEMPORARY_FILE_SUFFIX).delete();
+        }
+    }
+
+    private void writeEntries() {
+        try {
+            while (true) {
+                Object entry = pendingEntries.take();
+                if (entry == CLOSE)
+                    break;
+                if (isFailed)
+                    continue;
+                try {
+                    if (entry instanceof Checkpoint) {
+                        compactedTiles = new TileGridSnapshot(((Checkpoint) entry).tiles);
+                        mapPath = ((Checkpoint) entry).mapPath;
+                        writeSnapshot();
+                    }
+                    else if (entry instanceof MapPathRecord) {
+                        mapPath = ((MapPathRecord) entry).mapPath;
+                        if (journalOutput != null) {
+                            journalOutput.writeByte(RECORD_MAP_PATH);
+                            journalOutput.writeUTF(mapPath);
+                            syncJournalOutput();
+                        }
+                    }
+                    else if (compactedTiles != null) {
+                        writeTileRecords((TileRecords) entry);
+                        if (journalOutput.size() > COMPACTION_THRESHOLD_IN_BYTES)
+                            compact();
+                    }
+                } catch (IOException e) {
+                    isFailed = true;
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeJournalOutput();
+        }
+    }
+
+    private void writeTileRecords(TileRecords records) throws IOException {
+        journalOutput.writeByte(RECORD_TILES);
+        journalOutput.writeInt(records.count);
+        for (int k = 0; k < records.count; k++) {
+            journalOutput.writeInt(records.tiles[3 * k]);
+            journalOutput.writeInt(records.tiles[3 * k + 1]);
+            journalOutput.writeShort(records.tiles[3 * k + 2]);
+        }
+        syncJournalOutput();
+    }
+
+    private void syncJournalOutput() throws IOException {
+        journalOutput.flush();
+        journalFileOutput.getFD().sync();
+    }
+
+    private void compact() throws IOException {
+        closeJournalOutput();
+        TileGrid tiles = compactedTiles.restore();
+        DataInputStream journalInput = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, JOURNAL_FILE_NAME)), BUFFER_SIZE));
+        try {
+            journalInput.readInt();
+            journalInput.readShort();
+            journalInput.readInt();
+            replay(journalInput, tiles, null, mapPath);
+        } finally {
+            journalInput.close();
+        }
+        compactedTiles = new TileGridSnapshot(tiles);
+        writeSnapshot();
+    }
+
+    private void writeSnapshot() throws IOException {
+        generation++;
+        File snapshotFile = new File(directory, SNAPSHOT_FILE_NAME);
+        File temporaryFile = new File(directory, SNAPSHOT_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+        FileOutputStream snapshotFileOutput = new FileOutputStream(temporaryFile);
+        DataOutputStream snapshotOutput = new DataOutputStream(new BufferedOutputStream(snapshotFileOutput, BUFFER_SIZE));
+        try {
+            snapshotOutput.writeInt(SNAPSHOT_MAGIC);
+            snapshotOutput.writeShort(VERSION);
+            snapshotOutput.writeInt(generation);
+            snapshotOutput.writeUTF(configName == null ? "" : configName);
+            snapshotOutput.writeUTF(mapPath == null ? "" : mapPath);
+            compactedTiles.writeTo(snapshotOutput);
+            snapshotOutput.flush();
+            snapshotFileOutput.getFD().sync();
+        } finally {
+            snapshotOutput.close();
+        }
+        if (snapshotFile.exists() && !snapshotFile.delete())
+            throw new IOException("Can't replace journal snapshot \"" + snapshotFile.getAbsolutePath() + "\"!");
+        if (!temporaryFile.renameTo(snapshotFile))
+            throw new IOException("Can't rename journal snapshot \"" + temporaryFile.getAbsolutePath() + "\"!");
+
+        closeJournalOutput();
+        journalFileOutput = new FileOutputStream(new File(directory, JOURNAL_FILE_NAME));
+        journalOutput = new DataOutputStream(new BufferedOutputStream(journalFileOutput, BUFFER_SIZE));
+        journalOutput.writeInt(JOURNAL_MAGIC);
+        journalOutput.writeShort(VERSION);
+        journalOutput.writeInt(generation);
+        syncJournalOutput();
+    }
+
+    private void closeJournalOutput() {
+        if (journalOutput == null)
+            return;
+        try {
+            journalOutput.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journalOutput = null;
+        journalFileOutput = null;
+    }
+
+    public static RecoveredMap recover(File directory, boolean[] knownTileIDs, String configName) throws IOException {
+        File snapshotFile = new File(directory, SNAPSHOT_FILE_NAME);
+        if (!snapshotFile.isFile())
+            snapshotFile = new File(directory, SNAPSHOT_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+        if (!snapshotFile.isFile())
+            return null;
+        TileGrid tiles;
+        String mapPath;
+        int snapshotGeneration;
+        DataInputStream snapshotInput = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), BUFFER_SIZE));
+        try {
+            if (snapshotInput.readInt() != SNAPSHOT_MAGIC || snapshotInput.readShort() != VERSION)
+                throw new RuntimeException("Not a journal snapshot file!");
+            snapshotGeneration = snapshotInput.readInt();
+            final String snapshotConfigName = snapshotInput.readUTF();
+            if (configName != null && !snapshotConfigName.equals(configName))
+                throw new IOException("The unsaved map was made with configuration \"" + snapshotConfigName + "\", but \"" + configName + "\" is open now");
+            mapPath = snapshotInput.readUTF();
+            tiles = new BinaryMapReader(knownTileIDs, configName).read(snapshotInput);
+        } finally {
+            snapshotInput.close();
+        }
+
+        File journalFile = new File(directory, JOURNAL_FILE_NAME);
+        if (journalFile.isFile()) {
+            DataInputStream journalInput = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile), BUFFER_SIZE));
+            try {
+                if (journalInput.readInt() == JOURNAL_MAGIC && journalInput.readShort() == VERSION && journalInput.readInt() == snapshotGeneration)
+                    mapPath = replay(journalInput, tiles, knownTileIDs, mapPath);
+            } catch (EOFException e) {
+                // the journal ends with a record that was being written when the editor stopped
+            } finally {
+                journalInput.close();
+            }
+        }
+        return new RecoveredMap(tiles, mapPath);
+    }
+
+    private static String replay(DataInputStream journalInput, TileGrid tiles, boolean[] knownTileIDs, String mapPath) throws IOException {
+        final int width = tiles.getWidth();
+        final int height = tiles.getHeight();
+        int[] records = new int[3 * 64];
+        while (true) {
+            final int recordType = journalInput.read();
+            if (recordType < 0)
+                return mapPath;
+            if (recordType == RECORD_MAP_PATH) {
+                mapPath = journalInput.readUTF();
+                continue;
+            }
+            if (recordType != RECORD_TILES)
+                throw new RuntimeException("Unknown journal record type " + recordType + "!");
+            final int count = journalInput.readInt();
+            if (count < 0)
+                throw new RuntimeException("Corrupted journal record of " + count + " tiles!");
+            if (records.length < 3 * count)
+                records = new int[3 * count];
+            for (int k = 0; k < count; k++) {
+                records[3 * k] = journalInput.readInt();
+                records[3 * k + 1] = journalInput.readInt();
+                records[3 * k + 2] = journalInput.readUnsignedShort();
+            }
+            for (int k = 0; k < count; k++) {
+                final int x = records[3 * k];
+                final int y = records[3 * k + 1];
+                final int tileID = records[3 * k + 2];
+                if (x < 0 || y < 0 || x >= width || y >= height)
+                    continue;
+                if (knownTileIDs != null && (tileID >= knownTileIDs.length || !knownTileIDs[tileID]))
+                    continue;
+                tiles.setTileAt(x, y, tileID);
+            }
+        }
+    }
+
+    public static class RecoveredMap {
+        private final TileGrid tiles;
+        private final String mapPath;
+
+        private RecoveredMap(TileGrid _tiles, String _mapPath) {
+            tiles = _tiles;
+            mapPath = _mapPath;
+        }
+
+        public TileGrid getTiles() {
+            return tiles;
+        }
+
+        public String getMapPath() {
+            return mapPath;
+        }
+    }
+
+    private static class TileRecords {
+        private final int[] tiles;
+        private final int count;
+
+        private TileRecords(int[] _tiles, int _count) {
+            tiles = _tiles;
+            count = _count;
+        }
+    }
+
+    private static class MapPathRecord {
+        private final String mapPath;
+
+        private MapPathRecord(String _mapPath) {
+            mapPath = _mapPath;
+        }
+    }
+
+    private static class Checkpoint {
+        private final TileGrid tiles;
+        private final String mapPath;
+
+        private Checkpoint(TileGrid _tiles, String _mapPath) {
+            tiles = _tiles;
+            mapPath = _mapPath;
+        }
+    }
+}
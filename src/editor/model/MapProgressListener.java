@@ -0,0 +1,6 @@
+package editor.model;
+
+public interface MapProgressListener {
+    public void progressChanged(long completed, long total);
+    public boolean isCancelled();
+}
@@ -0,0 +1,158 @@
+package editor.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedTileGrid implements TileGrid {
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer[] segments;
+    private final int width, height;
+
+    public static final String FILE_EXTENSION = ".mmap";
+    private static final int MAGIC = 0x53434D4D;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BYTES_PER_TILE = 2;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_TILE_ID = 0xFFFF;
+
+    private MappedTileGrid(File _file, RandomAccessFile _randomAccessFile, int _width, int _height) throws IOException {
+        file = _file;
+        randomAccessFile = _randomAccessFile;
+        width = _width;
+        height = _height;
+        final long dataSize = (long) _width * _height * BYTES_PER_TILE;
+        segments = new MappedByteBuffer[(int) ((dataSize + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+        FileChannel channel = _randomAccessFile.getChannel();
+        for (int k = 0; k < segments.length; k++) {
+            final long segmentStart = (long) k << SEGMENT_SHIFT;
+            segments[k] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segmentStart, Math.min(SEGMENT_SIZE, dataSize - segmentStart));
+        }
+    }
+
+    public static boolean isMappedMapFile(String fileName) {
+        return fileName.toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    public static MappedTileGrid create(File file, int width, int height) throws IOException {
+        if (width < 0 || height < 0)
+            throw new RuntimeException("Illegal tile grid size " + width + "x" + height);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(0);
+            randomAccessFile.writeInt(MAGIC);
+            randomAccessFile.writeShort(VERSION);
+            randomAccessFile.writeShort(0);
+            randomAccessFile.writeInt(width);
+            randomAccessFile.writeInt(height);
+            randomAccessFile.setLength(HEADER_SIZE + (long) width * height * BYTES_PER_TILE);
+            return new MappedTileGrid(file, randomAccessFile, width, height);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public static MappedTileGrid open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            if (randomAccessFile.readInt() != MAGIC)
+                throw new RuntimeException("Not a mapped map file!");
+            final short version = randomAccessFile.readShort();
+            if (version != VERSION)
+                throw new RuntimeException("Unsupported mapped map version " + version + "!");
+            randomAccessFile.readShort();
+            final int width = randomAccessFile.readInt();
+            final int height = randomAccessFile.readInt();
+            if (width < 0 || height < 0 || randomAccessFile.length() < HEADER_SIZE + (long) width * height * BYTES_PER_TILE)
+                throw new RuntimeException("Mapped map file is truncated!");
+            return new MappedTileGrid(file, randomAccessFile, width, height);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        } catch (RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTileAt(int x, int y) {
+        final long byteIndex = byteIndexOf(x, y);
+        return segments[(int) (byteIndex >>> SEGMENT_SHIFT)].getShort((int) (byteIndex & SEGMENT_MASK)) & MAX_TILE_ID;
+    }
+
+    @Override
+    public void setTileAt(int x, int y, int tileID) {
+        if (tileID < 0 || tileID > MAX_TILE_ID)
+            throw new RuntimeException("Tile ID=" + tileID + " is out of supported range [0.." + MAX_TILE_ID + "]");
+        final long byteIndex = byteIndexOf(x, y);
+        segments[(int) (byteIndex >>> SEGMENT_SHIFT)].putShort((int) (byteIndex & SEGMENT_MASK), (short) tileID);
+    }
+
+    @Override
+    public void copyRegionTo(TileGrid destination, int fromX, int fromY, int toX, int toY, int regionWidth, int regionHeight) {
+        for (int j = 0; j < regionHeight; j++)
+            for (int i = 0; i < regionWidth; i++)
+                destination.setTileAt(toX + i, toY + j, getTileAt(fromX + i, fromY + j));
+    }
+
+    @Override
+    public TileGrid copy() {
+        TileGrid copy = new ArrayTileGrid(width, height);
+        copyRegionTo(copy, 0, 0, 0, 0, width, height);
+        return copy;
+    }
+
+    public MappedTileGrid resize(int newWidth, int newHeight) throws IOException {
+        File temporaryFile = new File(file.getAbsolutePath() + ".tmp");
+        MappedTileGrid resizedTiles = create(temporaryFile, newWidth, newHeight);
+        try {
+            copyRegionTo(resizedTiles, 0, 0, 0, 0, Math.min(width, newWidth), Math.min(height, newHeight));
+        } finally {
+            resizedTiles.close();
+        }
+        close();
+        if (!file.delete() || !temporaryFile.renameTo(file)) {
+            temporaryFile.delete();
+            throw new IOException("can't replace mapped map file \"" + file.getAbsolutePath() + "\"");
+        }
+        return open(file);
+    }
+
+    public void force() {
+        for (MappedByteBuffer segment : segments)
+            segment.force();
+    }
+
+    public void close() throws IOException {
+        force();
+        randomAccessFile.close();
+    }
+
+    private long byteIndexOf(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Tile (" + x + ", " + y + ") is out of " + width + "x" + height + " grid");
+        return ((long) y * width + x) * BYTES_PER_TILE;
+    }
+}
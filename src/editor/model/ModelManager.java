@@ -1,18 +1,16 @@
 package editor.model;
 
-import com.google.gson.Gson;
-import editor.service.Utils;
+import editor.service.EditorMetrics;
+import editor.service.TextureAtlas;
+import editor.service.TextureService;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.Writer;
+import java.io.*;
 import java.util.*;
 import java.util.List;
 
 public class ModelManager implements Configurable, CommandHandler {
     private int tileSizeInPixels = 32;
-    private int[][] tiles;
+    private TileGrid tiles;
     private int primaryMaterialID, secondaryMaterialID;
     private int mapWidth, mapHeight;
     private String mapAbsolutePath;
@@ -21,12 +19,27 @@ public class ModelManager implements Configurable, CommandHandler {
 
     private boolean isSmartModeOn = false;
 
-    private List<String> configurations;
+    private long mapModificationCount;
+    private int tileChangesDepth;
+    private boolean isWholeMapDirty;
+    private int dirtyTileCount;
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
 
-    private Map<Integer, TileType> tileIdToTileTypeMap;
+    private List<String> configurations;
+    private final ConfigurationRegistry configurationRegistry;
+
+    private TileSet tileSet;
+    private boolean[] knownTileIDs;
+    private TileAdjacencyMatrix tileAdjacencyMatrix;
+    private AutoTiler autoTiler;
+    private TextureAtlas textureAtlas;
+    private long[] smartUpdateWestNeighbours, smartUpdateNorthNeighbours, smartUpdateEastNeighbours, smartUpdateSouthNeighbours;
+    private long[] smartUpdateApplicableTiles;
     private List<TileType> tileTypes;
     private List<Observer> observers;
-    private List<Command> commandHistory;
+    private CommandHistory commandHistory;
+    private CommandHistory redoHistory;
+    private MapJournal journal;
     private final String configurationDirectory;
 
     private static ModelManager instance;
@@ -36,12 +49,18 @@ public class ModelManager implements Configurable, CommandHandler {
     private static final int MAP_DEFAULT_HEIGHT_IN_TILES = 20;
     private static final String STANDARD_CONFIGURATION_DIR = "configurations";
     public static final int TOOL_IMAGE_ICON_SIZE = 32;
+    private static final long DEFAULT_COMMAND_HISTORY_MEMORY_LIMIT = 64L << 20;
 
     private ModelManager(String configurationDir, String configName, String tileTypeFileName) {
+        this(new ConfigurationRegistry(configurationDir, tileTypeFileName), configName);
+    }
+
+    private ModelManager(ConfigurationRegistry _configurationRegistry, String configName) {
         mapAbsolutePath = "";
-        configurationDirectory = configurationDir;
-        configFileName = tileTypeFileName;
-        configurations = readConfigurations();
+        configurationRegistry = _configurationRegistry;
+        configurationDirectory = _configurationRegistry.getConfigurationDirectory();
+        configFileName = _configurationRegistry.getTileTypeFileName();
+        configurations = _configurationRegistry.getConfigurations();
         if (configurations.isEmpty())
             throw new RuntimeException("no configurations exists in \"" + configurationDirectory + "\"!");
         if (configName != null) {
@@ -54,9 +73,18 @@ public class ModelManager implements Configurable, CommandHandler {
         mapWidth = MAP_DEFAULT_WIDTH_IN_TILES;
         mapHeight = MAP_DEFAULT_HEIGHT_IN_TILES;
         observers = new ArrayList<Observer>();
-        commandHistory = new ArrayList<Command>();
-        tileIdToTileTypeMap = new HashMap<Integer, TileType>();
-        tileTypes = getLoadedTileTypesFromJson(configurationDir + File.separator + currentConfig + File.separator + tileTypeFileName);
+        commandHistory = new CommandHistory(DEFAULT_COMMAND_HISTORY_MEMORY_LIMIT);
+        redoHistory = new CommandHistory(DEFAULT_COMMAND_HISTORY_MEMORY_LIMIT);
+        tileSet = _configurationRegistry.getTileSet(currentConfig);
+        tileTypes = tileSet.getTileTypes();
+        knownTileIDs = tileSet.getKnownTileIDs();
+        tileAdjacencyMatrix = tileSet.getTileAdjacencyMatrix();
+        primaryMaterialID = secondaryMaterialID = tileTypes.get(0).getId();
+        smartUpdateWestNeighbours = tileAdjacencyMatrix.createTileSet();
+        smartUpdateNorthNeighbours = tileAdjacencyMatrix.createTileSet();
+        smartUpdateEastNeighbours = tileAdjacencyMatrix.createTileSet();
+        smartUpdateSouthNeighbours = tileAdjacencyMatrix.createTileSet();
+        smartUpdateApplicableTiles = tileAdjacencyMatrix.createTileSet();
         tiles = createInitiatedByDefaultTiles(mapWidth, mapHeight);
     }
 
@@ -74,12 +102,37 @@ public class ModelManager implements Configurable, CommandHandler {
         return configurationDirectory + File.separator + currentConfig;
     }
 
+    public TextureAtlas getTextureAtlas() {
+        if (textureAtlas == null) {
+            Map<Integer, String> textureFileNames = new HashMap<Integer, String>();
+            for (TileType tileType : tileTypes)
+                textureFileNames.put(tileType.getId(), tileType.getTexture());
+            textureAtlas = TextureService.getInstance().getAtlas(getImageDirectoryName(), textureFileNames);
+        }
+        return textureAtlas;
+    }
+
     @Override
     public void applyNewConfig(String newConfig) {
         if (!configurations.contains(newConfig))
             throw new RuntimeException("no currentConfig \"" + newConfig +"\" exists in \"" + configurationDirectory + "\"!");
         ModelManager oldInstance = instance;
-        instance = new ModelManager(configurationDirectory, newConfig, configFileName);
+        instance = new ModelManager(configurationRegistry, newConfig);
+        if (instance.tileSet.containsAllTilesOf(tiles)) {
+            instance.mapAbsolutePath = mapAbsolutePath;
+            instance.mapWidth = mapWidth;
+            instance.mapHeight = mapHeight;
+            instance.tiles = tiles;
+            instance.tileSizeInPixels = tileSizeInPixels;
+            instance.isSmartModeOn = isSmartModeOn;
+        }
+        else
+            closeMappedTiles();
+        if (journal != null) {
+            File journalDirectory = journal.getDirectory();
+            stopJournal(true);
+            instance.startJournal(journalDirectory);
+        }
         for (Observer o : observers)
             o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.NEW_MODEL, oldInstance));
     }
@@ -99,44 +152,120 @@ public class ModelManager implements Configurable, CommandHandler {
         return configurations.get(index);
     }
 
-    private List<String> readConfigurations() {
-        List<String> configs = new ArrayList<String>();
-        File root = new File(configurationDirectory);
-        for (File f : root.listFiles()) {
-            if (f.isDirectory())
-                configs.add(f.getName());
-        }
-        return configs;
-    }
-
     public void registerObserver(Observer observer) {
         if (!observers.contains(observer))
             observers.add(observer);
     }
 
-    private void fireAllMapChanged() {
+    public void unregisterObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    public void beginTileChanges() {
+        tileChangesDepth++;
+    }
+
+    public void endTileChanges() {
+        if (tileChangesDepth == 0 || --tileChangesDepth > 0)
+            return;
+        if (isWholeMapDirty)
+            fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.TOTAL_MAP_UPDATE, null));
+        else if (dirtyTileCount == 1)
+            fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.TILE_UPDATE, new int[] {dirtyMinX, dirtyMinY}));
+        else if (dirtyTileCount > 1)
+            fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.REGION_UPDATE, new int[] {dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX + 1, dirtyMaxY - dirtyMinY + 1}));
+        if (isJournalActive())
+            journal.commit();
+        isWholeMapDirty = false;
+        dirtyTileCount = 0;
+    }
+
+    private void fireUpdate(ModelManagerUpdateInfo updateInfo) {
+        EditorMetrics.getInstance().addObserverEvents(observers.size());
         for (Observer o : observers)
-            o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.TOTAL_MAP_UPDATE, null));
+            o.update(null, updateInfo);
+    }
+
+    private void fireAllMapChanged() {
+        mapModificationCount++;
+        if (isJournalActive())
+            journal.checkpoint(tiles, mapAbsolutePath);
+        if (tileChangesDepth > 0)
+            isWholeMapDirty = true;
+        else
+            fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.TOTAL_MAP_UPDATE, null));
     }
 
     private void fireOneTileChanged(int x, int y) {
-        for (Observer o : observers)
-            o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.TILE_UPDATE, new int[] {x, y}));
+        mapModificationCount++;
+        if (isJournalActive())
+            journal.recordTile(x, y, tiles.getTileAt(x, y));
+        if (tileChangesDepth == 0) {
+            if (isJournalActive())
+                journal.commit();
+            fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.TILE_UPDATE, new int[] {x, y}));
+            return;
+        }
+        if (dirtyTileCount == 0) {
+            dirtyMinX = dirtyMaxX = x;
+            dirtyMinY = dirtyMaxY = y;
+        }
+        else {
+            dirtyMinX = Math.min(dirtyMinX, x);
+            dirtyMaxX = Math.max(dirtyMaxX, x);
+            dirtyMinY = Math.min(dirtyMinY, y);
+            dirtyMaxY = Math.max(dirtyMaxY, y);
+        }
+        dirtyTileCount++;
     }
 
     private void fireCommandListChanged() {
-        for (Observer o : observers)
-            o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.COMMAND_LIST_CHANGED, null));
+        fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.COMMAND_LIST_CHANGED, null));
     }
 
     private void fireMaterialChanged() {
-        for (Observer o : observers)
-            o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.MATERIAL_UPDATE, null));
+        fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.MATERIAL_UPDATE, null));
     }
 
     private void fireMapFileChanged() {
-        for (Observer o : observers)
-            o.update(null, new ModelManagerUpdateInfo(ModelManagerUpdateType.MAP_FILE_UPDATE, null));
+        if (isJournalActive())
+            journal.recordMapPath(mapAbsolutePath);
+        fireUpdate(new ModelManagerUpdateInfo(ModelManagerUpdateType.MAP_FILE_UPDATE, null));
+    }
+
+    public void startJournal(File journalDirectory) {
+        stopJournal(false);
+        journal = new MapJournal(journalDirectory, currentConfig);
+        if (isJournalActive())
+            journal.checkpoint(tiles, mapAbsolutePath);
+    }
+
+    public void stopJournal(boolean isDiscarded) {
+        if (journal != null) {
+            journal.close(isDiscarded);
+            journal = null;
+        }
+    }
+
+    public boolean recoverFromJournal(File journalDirectory) {
+        MapJournal.RecoveredMap recoveredMap;
+        try {
+            recoveredMap = MapJournal.recover(journalDirectory, knownTileIDs, currentConfig);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't recover map from journal \"" + journalDirectory + "\": " + e.getMessage(), e);
+        }
+        if (recoveredMap == null)
+            return false;
+        setOpenedMap(recoveredMap.getTiles(), recoveredMap.getMapPath());
+        return true;
+    }
+
+    private boolean isJournalActive() {
+        return journal != null && !(tiles instanceof MappedTileGrid);
+    }
+
+    public long getMapModificationCount() {
+        return mapModificationCount;
     }
 
     public String getMapAbsolutePath() {
@@ -144,51 +273,69 @@ public class ModelManager implements Configurable, CommandHandler {
     }
 
     public String getTextureForTileID(int tileID) {
-        return tileIdToTileTypeMap.get(tileID).getTexture();
-    }
-
-    private List<TileType> getLoadedTileTypesFromJson(String jsonFileName) {
-        List<TileType> loadedTileTypes = new ArrayList<TileType>();
-        String jsonString = Utils.readFile(jsonFileName);
-        Map root = new Gson().fromJson(jsonString, Map.class);
-        List<Map<String, Object>> tiles = (List<Map<String, Object>>) root.get("tiles");
-        for (Map<String, Object> tile : tiles) {
-            TileType t = new TileType((int) Math.round((Double) tile.get("id")),
-                    (String) tile.get("name"), (String) tile.get("texture"), (Collection<String>) tile.get("tags"));
-            if (tile.get("wsw") != null)
-                t.setNeighbourMaterial(TileType.Side.WSW, (String)tile.get("wsw"));
-            if (tile.get("wnw") != null)
-                t.setNeighbourMaterial(TileType.Side.WNW, (String)tile.get("wnw"));
-            if (tile.get("nnw") != null)
-                t.setNeighbourMaterial(TileType.Side.NNW, (String)tile.get("nnw"));
-            if (tile.get("nne") != null)
-                t.setNeighbourMaterial(TileType.Side.NNE, (String)tile.get("nne"));
-            if (tile.get("ene") != null)
-                t.setNeighbourMaterial(TileType.Side.ENE, (String)tile.get("ene"));
-            if (tile.get("ese") != null)
-                t.setNeighbourMaterial(TileType.Side.ESE, (String)tile.get("ese"));
-            if (tile.get("sse") != null)
-                t.setNeighbourMaterial(TileType.Side.SSE, (String)tile.get("sse"));
-            if (tile.get("ssw") != null)
-                t.setNeighbourMaterial(TileType.Side.SSW, (String)tile.get("ssw"));
-            loadedTileTypes.add(t);
-            tileIdToTileTypeMap.put(t.getId(), t);
-        }
-        if (loadedTileTypes.isEmpty())
-            throw new RuntimeException("no tile types loaded :(");
-        primaryMaterialID = secondaryMaterialID = loadedTileTypes.get(0).getId();
-        return loadedTileTypes;
-    }
-
-    private int[][] createInitiatedByDefaultTiles(int x, int y) {
-        int[][] newTiles = new int[x][y];
-        for (int i = 0; i < x; i++)
-            for (int j = 0; j < y; j++)
+        return tileSet.getTileType(tileID).getTexture();
+    }
+
+    private TileGrid createInitiatedByDefaultTiles(int x, int y) {
+        TileGrid newTiles = new ArrayTileGrid(x, y);
+        fillWithDefaultTiles(newTiles, 0, 0, x, y);
+        return newTiles;
+    }
+
+    private void fillWithDefaultTiles(TileGrid grid, int fromX, int fromY, int regionWidth, int regionHeight) {
+        for (int j = fromY; j < fromY + regionHeight; j++)
+            for (int i = fromX; i < fromX + regionWidth; i++)
                 if (Math.random() > 0.5f)
-                    newTiles[i][j] = tileTypes.get(0).getId();
+                    grid.setTileAt(i, j, tileTypes.get(0).getId());
                 else
-                    newTiles[i][j] = tileTypes.get(1).getId();
-        return newTiles;
+                    grid.setTileAt(i, j, tileTypes.get(1).getId());
+    }
+
+    private void resizeTiles(int x, int y) {
+        final int oldWidth = mapWidth;
+        final int oldHeight = mapHeight;
+        TileGrid newTiles;
+        if (tiles instanceof MappedTileGrid) {
+            try {
+                newTiles = ((MappedTileGrid) tiles).resize(x, y);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't resize mapped map \"" + mapAbsolutePath + "\": " + e.getMessage(), e);
+            }
+        }
+        else {
+            newTiles = new ArrayTileGrid(x, y);
+            tiles.copyRegionTo(newTiles, 0, 0, 0, 0, Math.min(x, oldWidth), Math.min(y, oldHeight));
+        }
+        if (x > oldWidth)
+            fillWithDefaultTiles(newTiles, oldWidth, 0, x - oldWidth, y);
+        if (y > oldHeight)
+            fillWithDefaultTiles(newTiles, 0, oldHeight, Math.min(x, oldWidth), y - oldHeight);
+        tiles = newTiles;
+        mapWidth = x;
+        mapHeight = y;
+    }
+
+    private void restoreTiles(TileGridSnapshot snapshot) {
+        if (tiles instanceof MappedTileGrid) {
+            if (snapshot.getWidth() != mapWidth || snapshot.getHeight() != mapHeight)
+                resizeTiles(snapshot.getWidth(), snapshot.getHeight());
+            snapshot.restoreInto(tiles);
+        }
+        else {
+            tiles = snapshot.restore();
+            mapWidth = snapshot.getWidth();
+            mapHeight = snapshot.getHeight();
+        }
+    }
+
+    private void closeMappedTiles() {
+        if (tiles instanceof MappedTileGrid) {
+            try {
+                ((MappedTileGrid) tiles).close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     public int getTileSizeInPixels() {
@@ -209,90 +356,111 @@ public class ModelManager implements Configurable, CommandHandler {
     }
 
     public int getTileAt(int x, int y) {
-        return tiles[x][y];
+        return tiles.getTileAt(x, y);
+    }
+
+    public TileAdjacencyMatrix getTileAdjacencyMatrix() {
+        return tileAdjacencyMatrix;
     }
 
     public Iterator<TileType> getIteratorOfAllTileTypes() {
         return tileTypes.iterator();
     }
 
+    public void saveMapAtCurrentFile() {
+        saveMap(new File(mapAbsolutePath));
+    }
+
+    public void saveMap(File file) {
+        writeMap(tiles, file, null);
+        setSavedMapFile(file, mapModificationCount);
+    }
+
+    public boolean setSavedMapFile(File file, long savedMapModificationCount) {
+        if (MappedTileGrid.isMappedMapFile(file.getName()) && !isMappedTo(tiles, file)) {
+            if (savedMapModificationCount == mapModificationCount) {
+                closeMappedTiles();
+                tiles = readMap(file.getPath(), null);
+            }
+            else if (tiles instanceof MappedTileGrid)
+                return false;
+        }
+        setMapFile(file);
+        return true;
+    }
+
+    private static boolean isMappedTo(TileGrid mapTiles, File file) {
+        return mapTiles instanceof MappedTileGrid && ((MappedTileGrid) mapTiles).getFile().getAbsoluteFile().equals(file.getAbsoluteFile());
+    }
+
     public void saveMapAsJsonAtCurrentFile() {
-        saveMapAsJson(new File(mapAbsolutePath));
+        saveMap(new File(mapAbsolutePath));
     }
 
     public void saveMapAsJson(File file) {
+        saveMap(file);
+    }
+
+    public TileGrid getTilesForSaving() {
+        return tiles instanceof MappedTileGrid ? tiles : tiles.copy();
+    }
+
+    public void writeMap(TileGrid mapTiles, File file, MapProgressListener progressListener) {
+        final long startTime = System.nanoTime();
         try {
-            Writer w = new FileWriter(file);
-            w.append('{');
-            w.append('\n');
-            w.append("\"width\" : ");
-            w.append(String.valueOf(mapWidth));
-            w.append(",\n");
-            w.append("\"height\" : ");
-            w.append(String.valueOf(mapHeight));
-            w.append(",\n");
-            w.append("\"tiles\" : ");
-            w.append(new Gson().toJson(tiles).replace("],[", "],\n\t["));
-            w.append('\n');
-            w.append('}');
-            w.close();
+            if (isMappedTo(mapTiles, file))
+                ((MappedTileGrid) mapTiles).force();
+            else
+                MapFiles.write(mapTiles, file, currentConfig, progressListener);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Can't write map \"" + file.getAbsolutePath() + "\": " + e.getMessage(), e);
+        } finally {
+            EditorMetrics.getInstance().recordMapSave(System.nanoTime() - startTime);
         }
+    }
+
+    public void setMapFile(File file) {
         mapAbsolutePath = file.getAbsolutePath();
         fireMapFileChanged();
     }
 
     public List<TileType> getBasicTileTypes() {
-        List<TileType> basicTileTypes = new ArrayList<TileType>();
-        for (TileType t : tileTypes) {
-            if (t.getTags().contains("COMMON"))
-                basicTileTypes.add(t);
-        }
-        return basicTileTypes;
+        return tileSet.getTagIndex().getBasicTileTypes();
     }
 
     public List<TileType> getRelatedTileTypes(TileType tileType) {
-        List<TileType> relatedTileTypes = new ArrayList<TileType>();
-        for (TileType t : tileTypes) {
-            for (String s : tileType.getTags()) {
-                if (!s.equals("COMMON") && t.getTags().contains(s)) {
-                    relatedTileTypes.add(t);
-                    break;
-                }
-            }
-        }
-        return relatedTileTypes;
+        return tileSet.getTagIndex().getRelatedTileTypes(tileType);
     }
 
     public List<TileType> getTileTypesWithTags(List<String> commonTags) {
-        ArrayList<TileType> tileTypesWithTags = new ArrayList<TileType>();
-        if (!commonTags.isEmpty()) {
-            for (TileType tileType : tileTypes)
-                if (tileType.getTags().containsAll(commonTags))
-                    tileTypesWithTags.add(tileType);
-        }
-        return tileTypesWithTags;
+        return tileSet.getTagIndex().getTileTypesWithTags(commonTags);
     }
 
     public void openMapFromJson(String fileName) {
-        String jsonString = Utils.readFile(fileName);
-        Map root = new Gson().fromJson(jsonString, Map.class);
-        int newMapWidth = ((Double)root.get("width")).intValue();
-        int newMapHeight = ((Double)root.get("height")).intValue();
-        List<List<Double>> s = (List<List<Double>>)root.get("tiles");
-        int[][] newTiles = new int[newMapWidth][newMapHeight];
-        for (int i = 0; i < newMapWidth; i++) {
-            for (int j = 0; j < newMapHeight; j++) {
-                int tileTypeID = s.get(i).get(j).intValue();
-                if (!tileIdToTileTypeMap.containsKey(tileTypeID))
-                    throw new RuntimeException("No such tile type with ID=" + tileTypeID + " exists in currentConfig \"" + currentConfig + "\"!");
-                newTiles[i][j] = tileTypeID;
-            }
+        openMap(fileName);
+    }
+
+    public void openMap(String fileName) {
+        setOpenedMap(readMap(fileName, null), fileName);
+    }
+
+    public TileGrid readMap(String fileName, MapProgressListener progressListener) {
+        final long startTime = System.nanoTime();
+        try {
+            return MapFiles.read(new File(fileName), knownTileIDs, currentConfig, progressListener);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read map \"" + fileName + "\": " + e.getMessage(), e);
+        } finally {
+            EditorMetrics.getInstance().recordMapLoad(System.nanoTime() - startTime);
         }
+    }
+
+    public void setOpenedMap(TileGrid newTiles, String fileName) {
         mapAbsolutePath = fileName;
-        mapWidth = newMapWidth;
-        mapHeight = newMapHeight;
+        mapWidth = newTiles.getWidth();
+        mapHeight = newTiles.getHeight();
+        if (newTiles != tiles)
+            closeMappedTiles();
         tiles = newTiles;
         fireAllMapChanged();
         fireMapFileChanged();
@@ -312,7 +480,7 @@ public class ModelManager implements Configurable, CommandHandler {
         for (int i = 0; i < mapWidth; i++) {
             sb.append('[');
             for (int j = 0; j < mapHeight; j++) {
-                sb.append(tiles[i][j]);
+                sb.append(tiles.getTileAt(i, j));
                 if (j + 1 < mapHeight)
                     sb.append(',');
             }
@@ -324,16 +492,46 @@ public class ModelManager implements Configurable, CommandHandler {
 
     @Override
     public void performCommand(Command command) {
-        command.perform();
+        beginTileChanges();
+        try {
+            command.perform();
+        } finally {
+            endTileChanges();
+        }
         commandHistory.add(command);
+        redoHistory.clear();
+        EditorMetrics.getInstance().incrementCommands();
         fireCommandListChanged();
     }
 
     @Override
     public void undoLastCommand() {
         if (commandHistory.size() > 0) {
-            commandHistory.get(commandHistory.size() - 1).undo();
-            commandHistory.remove(commandHistory.size() - 1);
+            Command command = commandHistory.removeLast();
+            beginTileChanges();
+            try {
+                command.undo();
+            } finally {
+                endTileChanges();
+            }
+            redoHistory.add(command);
+            EditorMetrics.getInstance().incrementCommands();
+            fireCommandListChanged();
+        }
+    }
+
+    @Override
+    public void redoLastCommand() {
+        if (redoHistory.size() > 0) {
+            Command command = redoHistory.removeLast();
+            beginTileChanges();
+            try {
+                command.perform();
+            } finally {
+                endTileChanges();
+            }
+            commandHistory.add(command);
+            EditorMetrics.getInstance().incrementCommands();
             fireCommandListChanged();
         }
     }
@@ -341,14 +539,60 @@ public class ModelManager implements Configurable, CommandHandler {
     @Override
     public void clearCommandHistory() {
         commandHistory.clear();
+        redoHistory.clear();
         fireCommandListChanged();
     }
 
+    @Override
+    public int getRedoHistorySize() {
+        return redoHistory.size();
+    }
+
     @Override
     public int getCommandHistorySize() {
         return commandHistory.size();
     }
 
+    public long getCommandHistorySizeInBytes() {
+        return commandHistory.getSizeInBytes();
+    }
+
+    public void setCommandHistoryMemoryLimit(long _memoryLimitInBytes) {
+        commandHistory.setMemoryLimitInBytes(_memoryLimitInBytes);
+        redoHistory.setMemoryLimitInBytes(_memoryLimitInBytes);
+        fireCommandListChanged();
+    }
+
+    private void applyTileDeltas(TileDeltas deltas, boolean isUndo) {
+        beginTileChanges();
+        try {
+            if (!isUndo) {
+                int change = 0;
+                for (int run = 0; run < deltas.getRunCount(); run++) {
+                    final int y = deltas.getRunY(run);
+                    final int toX = deltas.getRunX(run) + deltas.getRunLength(run);
+                    for (int x = deltas.getRunX(run); x < toX; x++) {
+                        tiles.setTileAt(x, y, deltas.getNewTileIdAt(change++));
+                        fireOneTileChanged(x, y);
+                    }
+                }
+            }
+            else {
+                int change = deltas.getChangeCount() - 1;
+                for (int run = deltas.getRunCount() - 1; run >= 0; run--) {
+                    final int y = deltas.getRunY(run);
+                    final int fromX = deltas.getRunX(run);
+                    for (int x = fromX + deltas.getRunLength(run) - 1; x >= fromX; x--) {
+                        tiles.setTileAt(x, y, deltas.getOldTileIdAt(change--));
+                        fireOneTileChanged(x, y);
+                    }
+                }
+            }
+        } finally {
+            endTileChanges();
+        }
+    }
+
     public void setPrimaryMaterialID(int _primaryMaterialID) {
         primaryMaterialID = _primaryMaterialID;
         fireMaterialChanged();
@@ -381,7 +625,7 @@ public class ModelManager implements Configurable, CommandHandler {
         setPrimaryMaterialID(tmp);
     }
 
-    public static enum ModelManagerUpdateType {MATERIAL_UPDATE, TILE_UPDATE, TOTAL_MAP_UPDATE, MAP_FILE_UPDATE, NEW_MODEL, COMMAND_LIST_CHANGED}
+    public static enum ModelManagerUpdateType {MATERIAL_UPDATE, TILE_UPDATE, REGION_UPDATE, TOTAL_MAP_UPDATE, MAP_FILE_UPDATE, NEW_MODEL, COMMAND_LIST_CHANGED}
 
     public static class ModelManagerUpdateInfo {
         private ModelManagerUpdateType updateType;
@@ -401,133 +645,176 @@ public class ModelManager implements Configurable, CommandHandler {
         }
     }
 
-    public class SmartUpdateTileAtCommand implements Command {
+    public class SmartUpdateTileAtCommand implements SizedCommand {
         private int x, y;
         private int newMaterial;
-        private MacroCommand macroCommand;
+        private TileDeltas deltas;
+        private boolean isResolved;
 
         public SmartUpdateTileAtCommand(int _x, int _y, int _newMaterial) {
             x = _x;
             y = _y;
             newMaterial = _newMaterial;
-            macroCommand = new MacroCommand();
+            deltas = new TileDeltas();
         }
 
-        private Collection<TileType> getApplicableTileTypes(int _x, int _y) {
-            TileType northNeighbour = null;
+        private void updateTileAt(int _x, int _y, int materialID) {
+            final int oldMaterial = ModelManager.this.tiles.getTileAt(_x, _y);
+            if (materialID != 0 && materialID != oldMaterial) {
+                ModelManager.this.tiles.setTileAt(_x, _y, materialID);
+                ModelManager.this.fireOneTileChanged(_x, _y);
+                deltas.add(_x, _y, oldMaterial, materialID);
+            }
+        }
+
+        private int getTileIndexAt(int _x, int _y) {
+            return ModelManager.this.tileAdjacencyMatrix.indexOf(ModelManager.this.tiles.getTileAt(_x, _y));
+        }
+
+        private void retainApplicableTileTypes(int _x, int _y, long[] applicableTiles) {
+            final TileAdjacencyMatrix matrix = ModelManager.this.tileAdjacencyMatrix;
+            matrix.fillWithAllTiles(applicableTiles);
             if (_y - 1 >= 0)
-                northNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[_x][_y - 1]);
-            TileType southNeighbour = null;
+                matrix.retainApplicable(getTileIndexAt(_x, _y - 1), TileType.Side.SSE, TileType.Side.SSW, applicableTiles);
             if (_y + 1 < ModelManager.this.mapHeight)
-                southNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[_x][_y + 1]);
-            TileType westNeighbour = null;
+                matrix.retainApplicable(getTileIndexAt(_x, _y + 1), TileType.Side.NNW, TileType.Side.NNE, applicableTiles);
             if (_x - 1 >= 0)
-                westNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[_x - 1][_y]);
-            TileType eastNeighbour = null;
+                matrix.retainApplicable(getTileIndexAt(_x - 1, _y), TileType.Side.ENE, TileType.Side.ESE, applicableTiles);
             if (_x + 1 < ModelManager.this.mapWidth)
-                eastNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[_x + 1][_y]);
-            Collection<TileType> intersection = new ArrayList<TileType>();
-            for (TileType t : tileTypes)
-                intersection.add(t);
-            if (northNeighbour != null)
-                intersection = northNeighbour.getApplicableTileTypes(intersection, TileType.Side.SSE, TileType.Side.SSW);
-            if (southNeighbour != null)
-                intersection = southNeighbour.getApplicableTileTypes(intersection, TileType.Side.NNW, TileType.Side.NNE);
-            if (westNeighbour != null)
-                intersection = westNeighbour.getApplicableTileTypes(intersection, TileType.Side.ENE, TileType.Side.ESE);
-            if (eastNeighbour != null)
-                intersection = eastNeighbour.getApplicableTileTypes(intersection, TileType.Side.WSW, TileType.Side.WNW);
-            return intersection;
+                matrix.retainApplicable(getTileIndexAt(_x + 1, _y), TileType.Side.WSW, TileType.Side.WNW, applicableTiles);
+        }
+
+        private void repairSideNeighbour(int centerIndex, int neighbourX, int neighbourY, int farX, int farY, long[] sideNeighbours, TileType.Side firstSide, TileType.Side secondSide) {
+            final TileAdjacencyMatrix matrix = ModelManager.this.tileAdjacencyMatrix;
+            if (matrix.isNeighbourTo(getTileIndexAt(neighbourX, neighbourY), centerIndex, firstSide, secondSide))
+                return;
+            int replacementIndex;
+            if (farX >= 0 && farX < ModelManager.this.mapWidth && farY >= 0 && farY < ModelManager.this.mapHeight) {
+                final long[] applicableTiles = ModelManager.this.smartUpdateApplicableTiles;
+                System.arraycopy(sideNeighbours, 0, applicableTiles, 0, sideNeighbours.length);
+                matrix.retainApplicable(getTileIndexAt(farX, farY), firstSide, secondSide, applicableTiles);
+                replacementIndex = TileAdjacencyMatrix.firstIndexOf(applicableTiles);
+            }
+            else
+                replacementIndex = TileAdjacencyMatrix.firstIndexOf(sideNeighbours);
+            if (replacementIndex >= 0)
+                updateTileAt(neighbourX, neighbourY, matrix.getTileIdAt(replacementIndex));
+        }
+
+        private void repairCornerNeighbour(int cornerX, int cornerY) {
+            final long[] applicableTiles = ModelManager.this.smartUpdateApplicableTiles;
+            retainApplicableTileTypes(cornerX, cornerY, applicableTiles);
+            final int replacementIndex = TileAdjacencyMatrix.firstIndexOf(applicableTiles);
+            if (replacementIndex >= 0 && !TileAdjacencyMatrix.contains(applicableTiles, getTileIndexAt(cornerX, cornerY)))
+                updateTileAt(cornerX, cornerY, ModelManager.this.tileAdjacencyMatrix.getTileIdAt(replacementIndex));
         }
 
         @Override
         public void perform() {
-            macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x, y, newMaterial));
-
-            TileType center = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x][y]);
-            Collection<TileType> westNeighbours = center.getApplicableTileTypes(ModelManager.this.tileTypes, TileType.Side.WSW, TileType.Side.WNW);
-            Collection<TileType> northNeighbours = center.getApplicableTileTypes(ModelManager.this.tileTypes, TileType.Side.NNW, TileType.Side.NNE);
-            Collection<TileType> eastNeighbours = center.getApplicableTileTypes(ModelManager.this.tileTypes, TileType.Side.ENE, TileType.Side.ESE);
-            Collection<TileType> southNeighbours = center.getApplicableTileTypes(ModelManager.this.tileTypes, TileType.Side.SSE, TileType.Side.SSW);
-
-            if (y - 1 >= 0) {
-                TileType northNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x][y - 1]);
-                if (!northNeighbour.isNeighbourTo(center, TileType.Side.SSE, TileType.Side.SSW)) {
-                    if (y - 2 >= 0) {
-                        TileType northTileType = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x][y - 2]);
-                        Collection<TileType> applicableTileTypes = northTileType.getApplicableTileTypes(northNeighbours, TileType.Side.SSE, TileType.Side.SSW);
-                        if (!applicableTileTypes.isEmpty())
-                            macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x, y - 1, applicableTileTypes.iterator().next().getId()));
-                    } else if (!northNeighbours.isEmpty())
-                        macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x, y - 1, northNeighbours.iterator().next().getId()));
-                }
-            }
-            if (y + 1 < ModelManager.this.mapHeight) {
-                TileType southNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x][y + 1]);
-                if (!southNeighbour.isNeighbourTo(center, TileType.Side.NNW, TileType.Side.NNE)) {
-                    if (y + 2 < ModelManager.this.mapHeight) {
-                        TileType southTileType = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x][y + 2]);
-                        Collection<TileType> applicableTileTypes = southTileType.getApplicableTileTypes(southNeighbours, TileType.Side.NNW, TileType.Side.NNE);
-                        if (!applicableTileTypes.isEmpty())
-                            macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x, y + 1, applicableTileTypes.iterator().next().getId()));
-                    } else if (!southNeighbours.isEmpty())
-                        macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x, y + 1, southNeighbours.iterator().next().getId()));
-                }
-            }
-            if (x - 1 >= 0) {
-                TileType westNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x - 1][y]);
-                if (!westNeighbour.isNeighbourTo(center, TileType.Side.ENE, TileType.Side.ESE)) {
-                    if (x - 2 >= 0) {
-                        TileType westTileType = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x - 2][y]);
-                        Collection<TileType> applicableTileTypes = westTileType.getApplicableTileTypes(westNeighbours, TileType.Side.ENE, TileType.Side.ESE);
-                        if (!applicableTileTypes.isEmpty())
-                            macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x - 1, y, applicableTileTypes.iterator().next().getId()));
-                    } else if (!westNeighbours.isEmpty())
-                        macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x - 1, y, westNeighbours.iterator().next().getId()));
-                }
-            }
-            if (x + 1 < ModelManager.this.mapWidth) {
-                TileType eastNeighbour = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x + 1][y]);
-                if (!eastNeighbour.isNeighbourTo(center, TileType.Side.WSW, TileType.Side.WNW)) {
-                    if (x + 2 < ModelManager.this.mapWidth) {
-                        TileType eastTileType = ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x + 2][y]);
-                        Collection<TileType> applicableTileTypes = eastTileType.getApplicableTileTypes(eastNeighbours, TileType.Side.WSW, TileType.Side.WNW);
-                        if (!applicableTileTypes.isEmpty())
-                            macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x + 1, y, applicableTileTypes.iterator().next().getId()));
-                    } else if (!eastNeighbours.isEmpty())
-                        macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x + 1, y, eastNeighbours.iterator().next().getId()));
-                }
-            }
-            if (x - 1 >= 0 && y - 1 >= 0) {
-                Collection<TileType> intersection = getApplicableTileTypes(x - 1, y - 1);
-                if (!intersection.isEmpty() && !intersection.contains(ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x - 1][y - 1])))
-                    macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x - 1, y - 1, intersection.iterator().next().getId()));
-            }
-            if (x - 1 >= 0 && y + 1 < ModelManager.this.mapHeight) {
-                Collection<TileType> intersection = getApplicableTileTypes(x - 1, y + 1);
-                if (!intersection.isEmpty() && !intersection.contains(ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x - 1][y + 1])))
-                    macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x - 1, y + 1, intersection.iterator().next().getId()));
+            if (isResolved) {
+                ModelManager.this.applyTileDeltas(deltas, false);
+                return;
             }
-            if (x + 1 < ModelManager.this.mapWidth && y - 1 >= 0) {
-                Collection<TileType> intersection = getApplicableTileTypes(x + 1, y - 1);
-                if (!intersection.isEmpty() && !intersection.contains(ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x + 1][y - 1])))
-                    macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x + 1, y - 1, intersection.iterator().next().getId()));
-            }
-            if (x + 1 < ModelManager.this.mapWidth && y + 1 < ModelManager.this.mapHeight) {
-                Collection<TileType> intersection = getApplicableTileTypes(x + 1, y + 1);
-                if (!intersection.isEmpty() && !intersection.contains(ModelManager.this.tileIdToTileTypeMap.get(ModelManager.this.tiles[x + 1][y + 1])))
-                    macroCommand.addCommand(ModelManager.this.new UpdateTileAtCommand(x + 1, y + 1, intersection.iterator().next().getId()));
+            isResolved = true;
+            final long startTime = System.nanoTime();
+            resolve();
+            EditorMetrics.getInstance().recordSmartUpdate(System.nanoTime() - startTime);
+        }
+
+        private void resolve() {
+            updateTileAt(x, y, newMaterial);
+
+            final ModelManager mgr = ModelManager.this;
+            final TileAdjacencyMatrix matrix = mgr.tileAdjacencyMatrix;
+            final int centerIndex = getTileIndexAt(x, y);
+            final long[] westNeighbours = mgr.smartUpdateWestNeighbours;
+            final long[] northNeighbours = mgr.smartUpdateNorthNeighbours;
+            final long[] eastNeighbours = mgr.smartUpdateEastNeighbours;
+            final long[] southNeighbours = mgr.smartUpdateSouthNeighbours;
+            matrix.fillWithAllTiles(westNeighbours);
+            matrix.retainApplicable(centerIndex, TileType.Side.WSW, TileType.Side.WNW, westNeighbours);
+            matrix.fillWithAllTiles(northNeighbours);
+            matrix.retainApplicable(centerIndex, TileType.Side.NNW, TileType.Side.NNE, northNeighbours);
+            matrix.fillWithAllTiles(eastNeighbours);
+            matrix.retainApplicable(centerIndex, TileType.Side.ENE, TileType.Side.ESE, eastNeighbours);
+            matrix.fillWithAllTiles(southNeighbours);
+            matrix.retainApplicable(centerIndex, TileType.Side.SSE, TileType.Side.SSW, southNeighbours);
+
+            if (y - 1 >= 0)
+                repairSideNeighbour(centerIndex, x, y - 1, x, y - 2, northNeighbours, TileType.Side.SSE, TileType.Side.SSW);
+            if (y + 1 < mgr.mapHeight)
+                repairSideNeighbour(centerIndex, x, y + 1, x, y + 2, southNeighbours, TileType.Side.NNW, TileType.Side.NNE);
+            if (x - 1 >= 0)
+                repairSideNeighbour(centerIndex, x - 1, y, x - 2, y, westNeighbours, TileType.Side.ENE, TileType.Side.ESE);
+            if (x + 1 < mgr.mapWidth)
+                repairSideNeighbour(centerIndex, x + 1, y, x + 2, y, eastNeighbours, TileType.Side.WSW, TileType.Side.WNW);
+            if (x - 1 >= 0 && y - 1 >= 0)
+                repairCornerNeighbour(x - 1, y - 1);
+            if (x - 1 >= 0 && y + 1 < mgr.mapHeight)
+                repairCornerNeighbour(x - 1, y + 1);
+            if (x + 1 < mgr.mapWidth && y - 1 >= 0)
+                repairCornerNeighbour(x + 1, y - 1);
+            if (x + 1 < mgr.mapWidth && y + 1 < mgr.mapHeight)
+                repairCornerNeighbour(x + 1, y + 1);
+        }
+
+        @Override
+        public void undo() {
+            ModelManager.this.applyTileDeltas(deltas, true);
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 32 + deltas.getSizeInBytes();
+        }
+    }
+
+    public class PaintTilesCommand implements SizedCommand {
+        private final TileDeltas deltas;
+        private boolean isUndone;
+
+        public PaintTilesCommand() {
+            deltas = new TileDeltas();
+        }
+
+        public void paintTileAt(int x, int y, int newMaterial) {
+            final int oldMaterial = ModelManager.this.tiles.getTileAt(x, y);
+            if (newMaterial != 0 && newMaterial != oldMaterial) {
+                ModelManager.this.tiles.setTileAt(x, y, newMaterial);
+                ModelManager.this.fireOneTileChanged(x, y);
+                deltas.add(x, y, oldMaterial, newMaterial);
             }
         }
 
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        public void trimToSize() {
+            deltas.trimToSize();
+        }
+
+        @Override
+        public void perform() {
+            if (isUndone) {
+                ModelManager.this.applyTileDeltas(deltas, false);
+                isUndone = false;
+            }
+        }
 
         @Override
         public void undo() {
-            macroCommand.undo();
+            ModelManager.this.applyTileDeltas(deltas, true);
+            isUndone = true;
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 32 + deltas.getSizeInBytes();
         }
     }
 
-    public class UpdateTileAtCommand implements Command {
+    public class UpdateTileAtCommand implements SizedCommand {
         private int x, y;
         private int oldMaterial, newMaterial;
 
@@ -539,7 +826,7 @@ public class ModelManager implements Configurable, CommandHandler {
 
         @Override
         public void perform() {
-            oldMaterial = ModelManager.this.tiles[x][y];
+            oldMaterial = ModelManager.this.tiles.getTileAt(x, y);
             updateTileAtWith(x, y, newMaterial);
         }
 
@@ -548,18 +835,69 @@ public class ModelManager implements Configurable, CommandHandler {
             updateTileAtWith(x, y, oldMaterial);
         }
 
+        @Override
+        public long getSizeInBytes() {
+            return 32;
+        }
+
         private void updateTileAtWith(int x, int y, int materialID) {
             if (materialID != 0) {
-                ModelManager.this.tiles[x][y] = materialID;
+                ModelManager.this.tiles.setTileAt(x, y, materialID);
                 ModelManager.this.fireOneTileChanged(x, y);
             }
         }
     }
 
-    public class UpdateMapSizeCommand implements Command {
+    public class AutoTileRegionCommand implements SizedCommand {
+        private AutoTileRegion region;
+        private AutoTiler.Result result;
+
+        public AutoTileRegionCommand(AutoTileRegion _region) {
+            region = _region;
+        }
+
+        public AutoTileRegionCommand(int _x, int _y, int _width, int _height) {
+            region = AutoTileRegion.rectangle(ModelManager.this.tiles, _x, _y, _width, _height);
+        }
+
+        public void resolve() {
+            final ModelManager mgr = ModelManager.this;
+            if (result == null) {
+                AutoTiler autoTiler = mgr.autoTiler;
+                if (autoTiler == null)
+                    mgr.autoTiler = autoTiler = new AutoTiler(mgr.tileAdjacencyMatrix);
+                result = autoTiler.solve(mgr.tiles, region);
+                region = null;
+            }
+        }
+
+        @Override
+        public void perform() {
+            resolve();
+            ModelManager.this.applyTileDeltas(result.getDeltas(), false);
+        }
+
+        @Override
+        public void undo() {
+            ModelManager.this.applyTileDeltas(result.getDeltas(), true);
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 32 + (result != null ? result.getDeltas().getSizeInBytes() : 0);
+        }
+
+        public int getConflictCount() {
+            return result != null ? result.getConflictCount() : 0;
+        }
+    }
+
+    public class UpdateMapSizeCommand implements SizedCommand {
         private int newMapWidth, newMapHeight;
         private int oldMapWidth, oldMapHeight;
-        private int[][] oldTiles;
+        private TileGridSnapshot oldTiles;
+        private TileGridSnapshot resizedTiles;
+        private boolean isPerformed;
 
         public UpdateMapSizeCommand(int _width, int _height) {
             newMapWidth = _width;
@@ -571,48 +909,69 @@ public class ModelManager implements Configurable, CommandHandler {
             final ModelManager mgr = ModelManager.this;
             oldMapWidth = mgr.mapWidth;
             oldMapHeight = mgr.mapHeight;
-            oldTiles = mgr.tiles;
-            setMapSize(newMapWidth, newMapHeight);
+            if (!isPerformed) {
+                isPerformed = true;
+                if (newMapWidth < oldMapWidth || newMapHeight < oldMapHeight)
+                    oldTiles = new TileGridSnapshot(mgr.tiles);
+                mgr.resizeTiles(newMapWidth, newMapHeight);
+                if (newMapWidth > oldMapWidth || newMapHeight > oldMapHeight)
+                    resizedTiles = new TileGridSnapshot(mgr.tiles);
+            }
+            else if (resizedTiles != null)
+                mgr.restoreTiles(resizedTiles);
+            else
+                mgr.resizeTiles(newMapWidth, newMapHeight);
             mgr.fireAllMapChanged();
         }
 
         @Override
         public void undo() {
             final ModelManager mgr = ModelManager.this;
-            setMapSize(oldMapWidth, oldMapHeight);
-            mgr.tiles = oldTiles;
+            if (oldTiles != null)
+                mgr.restoreTiles(oldTiles);
+            else
+                mgr.resizeTiles(oldMapWidth, oldMapHeight);
             mgr.fireAllMapChanged();
         }
 
-        private void setMapSize(int x, int y) {
-            int[][] newTiles = ModelManager.this.createInitiatedByDefaultTiles(x, y);
-            for (int i = 0; i < Math.min(x, mapWidth); i++)
-                for (int j = 0; j < Math.min(y, mapHeight); j++)
-                    newTiles[i][j] = ModelManager.this.tiles[i][j];
-            mapWidth = x;
-            mapHeight = y;
-            ModelManager.this.tiles = newTiles;
+        @Override
+        public long getSizeInBytes() {
+            return 56 + (oldTiles != null ? oldTiles.getSizeInBytes() : 0) + (resizedTiles != null ? resizedTiles.getSizeInBytes() : 0);
         }
     }
 
-    public class ClearMapCommand implements Command {
-        private int[][] oldTiles;
+    public class ClearMapCommand implements SizedCommand {
+        private TileGridSnapshot oldTiles;
+        private TileGridSnapshot clearedTiles;
 
         public ClearMapCommand() { }
 
         @Override
         public void perform() {
             final ModelManager mgr = ModelManager.this;
-            oldTiles = mgr.tiles;
-            mgr.tiles = ModelManager.this.createInitiatedByDefaultTiles(mgr.mapWidth, mgr.mapHeight);
+            if (clearedTiles != null)
+                mgr.restoreTiles(clearedTiles);
+            else {
+                oldTiles = new TileGridSnapshot(mgr.tiles);
+                if (mgr.tiles instanceof MappedTileGrid)
+                    mgr.fillWithDefaultTiles(mgr.tiles, 0, 0, mgr.mapWidth, mgr.mapHeight);
+                else
+                    mgr.tiles = mgr.createInitiatedByDefaultTiles(mgr.mapWidth, mgr.mapHeight);
+                clearedTiles = new TileGridSnapshot(mgr.tiles);
+            }
             mgr.fireAllMapChanged();
         }
 
         @Override
         public void undo() {
             final ModelManager mgr = ModelManager.this;
-            mgr.tiles = oldTiles;
+            mgr.restoreTiles(oldTiles);
             mgr.fireAllMapChanged();
         }
+
+        @Override
+        public long getSizeInBytes() {
+            return 32 + (oldTiles != null ? oldTiles.getSizeInBytes() : 0) + (clearedTiles != null ? clearedTiles.getSizeInBytes() : 0);
+        }
     }
 }
\ No newline at end of file
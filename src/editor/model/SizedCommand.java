@@ -0,0 +1,5 @@
+package editor.model;
+
+public interface SizedCommand extends Command {
+    public long getSizeInBytes();
+}
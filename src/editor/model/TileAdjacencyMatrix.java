@@ -0,0 +1,137 @@
+package editor.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TileAdjacencyMatrix {
+    private final TileType[] tileTypes;
+    private final int[] tileIdToIndex;
+    private final int wordCount;
+    private final long[][] compatibleTiles;
+
+    private static final int SIDE_COUNT = TileType.Side.values().length;
+
+    public TileAdjacencyMatrix(List<TileType> _tileTypes) {
+        tileTypes = _tileTypes.toArray(new TileType[_tileTypes.size()]);
+        wordCount = (tileTypes.length + 63) >>> 6;
+
+        int maxTileID = 0;
+        for (TileType t : tileTypes)
+            maxTileID = Math.max(maxTileID, t.getId());
+        tileIdToIndex = new int[maxTileID + 1];
+        Arrays.fill(tileIdToIndex, -1);
+        for (int index = 0; index < tileTypes.length; index++)
+            if (tileTypes[index].getId() >= 0 && tileIdToIndex[tileTypes[index].getId()] < 0)
+                tileIdToIndex[tileTypes[index].getId()] = index;
+
+        Map<String, Integer> materialIDs = new HashMap<String, Integer>();
+        int[][] materials = new int[tileTypes.length][SIDE_COUNT];
+        for (int index = 0; index < tileTypes.length; index++) {
+            for (TileType.Side side : TileType.Side.values()) {
+                String material = tileTypes[index].getNeighbourMaterial(side);
+                int materialID = -1;
+                if (material != null) {
+                    Integer id = materialIDs.get(material);
+                    if (id == null) {
+                        id = materialIDs.size();
+                        materialIDs.put(material, id);
+                    }
+                    materialID = id;
+                }
+                materials[index][side.ordinal()] = materialID;
+            }
+        }
+
+        long[][][] tilesByMaterialOnSide = new long[SIDE_COUNT][materialIDs.size()][];
+        for (int index = 0; index < tileTypes.length; index++) {
+            for (int side = 0; side < SIDE_COUNT; side++) {
+                final int materialID = materials[index][side];
+                if (materialID < 0)
+                    continue;
+                if (tilesByMaterialOnSide[side][materialID] == null)
+                    tilesByMaterialOnSide[side][materialID] = new long[wordCount];
+                tilesByMaterialOnSide[side][materialID][index >>> 6] |= 1L << index;
+            }
+        }
+
+        compatibleTiles = new long[tileTypes.length * SIDE_COUNT][];
+        for (int index = 0; index < tileTypes.length; index++) {
+            for (TileType.Side side : TileType.Side.values()) {
+                final int materialID = materials[index][side.ordinal()];
+                long[] compatible = null;
+                if (materialID >= 0)
+                    compatible = tilesByMaterialOnSide[side.getOppositeSide().ordinal()][materialID];
+                compatibleTiles[index * SIDE_COUNT + side.ordinal()] = compatible != null ? compatible : new long[wordCount];
+            }
+        }
+    }
+
+    public int getTileCount() {
+        return tileTypes.length;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int indexOf(int tileID) {
+        if (tileID < 0 || tileID >= tileIdToIndex.length)
+            return -1;
+        return tileIdToIndex[tileID];
+    }
+
+    public TileType getTileTypeAt(int index) {
+        return tileTypes[index];
+    }
+
+    public int getTileIdAt(int index) {
+        return tileTypes[index].getId();
+    }
+
+    public boolean isNeighbourTo(int index, int otherIndex, TileType.Side side) {
+        if (index < 0)
+            return false;
+        return contains(compatibleTiles[index * SIDE_COUNT + side.ordinal()], otherIndex);
+    }
+
+    public boolean isNeighbourTo(int index, int otherIndex, TileType.Side firstSide, TileType.Side secondSide) {
+        return isNeighbourTo(index, otherIndex, firstSide) && isNeighbourTo(index, otherIndex, secondSide);
+    }
+
+    public void retainApplicable(int index, TileType.Side side, long[] tiles) {
+        if (index < 0)
+            return;
+        final long[] compatible = compatibleTiles[index * SIDE_COUNT + side.ordinal()];
+        for (int k = 0; k < wordCount; k++)
+            tiles[k] &= compatible[k];
+    }
+
+    public void retainApplicable(int index, TileType.Side firstSide, TileType.Side secondSide, long[] tiles) {
+        retainApplicable(index, firstSide, tiles);
+        retainApplicable(index, secondSide, tiles);
+    }
+
+    public long[] createTileSet() {
+        return new long[wordCount];
+    }
+
+    public void fillWithAllTiles(long[] tiles) {
+        Arrays.fill(tiles, 0, wordCount, -1L);
+        final int tail = tileTypes.length & 63;
+        if (tail != 0)
+            tiles[wordCount - 1] = (1L << tail) - 1;
+    }
+
+    public static boolean contains(long[] tiles, int index) {
+        return index >= 0 && (tiles[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static int firstIndexOf(long[] tiles) {
+        for (int k = 0; k < tiles.length; k++)
+            if (tiles[k] != 0)
+                return (k << 6) + Long.numberOfTrailingZeros(tiles[k]);
+        return -1;
+    }
+}
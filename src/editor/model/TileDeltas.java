@@ -0,0 +1,77 @@
+package editor.model;
+
+import java.util.Arrays;
+
+public class TileDeltas {
+    private int[] runs;
+    private int runCount;
+    private int[] changes;
+    private int changeCount;
+
+    private static final int RUN_FIELDS = 3;
+    private static final int TILE_ID_MASK = 0xFFFF;
+
+    public TileDeltas() {
+        runs = new int[RUN_FIELDS * 4];
+        changes = new int[8];
+    }
+
+    public void add(int x, int y, int oldTileID, int newTileID) {
+        final int lastRun = (runCount - 1) * RUN_FIELDS;
+        if (runCount > 0 && runs[lastRun + 1] == y && runs[lastRun] + runs[lastRun + 2] == x)
+            runs[lastRun + 2]++;
+        else {
+            if ((runCount + 1) * RUN_FIELDS > runs.length)
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            final int run = runCount * RUN_FIELDS;
+            runs[run] = x;
+            runs[run + 1] = y;
+            runs[run + 2] = 1;
+            runCount++;
+        }
+        if (changeCount == changes.length)
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        changes[changeCount++] = ((oldTileID & TILE_ID_MASK) << 16) | (newTileID & TILE_ID_MASK);
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    public boolean isEmpty() {
+        return changeCount == 0;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public int getRunX(int run) {
+        return runs[run * RUN_FIELDS];
+    }
+
+    public int getRunY(int run) {
+        return runs[run * RUN_FIELDS + 1];
+    }
+
+    public int getRunLength(int run) {
+        return runs[run * RUN_FIELDS + 2];
+    }
+
+    public int getOldTileIdAt(int change) {
+        return changes[change] >>> 16;
+    }
+
+    public int getNewTileIdAt(int change) {
+        return changes[change] & TILE_ID_MASK;
+    }
+
+    public void trimToSize() {
+        runs = Arrays.copyOf(runs, runCount * RUN_FIELDS);
+        changes = Arrays.copyOf(changes, changeCount);
+    }
+
+    public long getSizeInBytes() {
+        return 48 + 4L * runs.length + 4L * changes.length;
+    }
+}
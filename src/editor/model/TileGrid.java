@@ -0,0 +1,10 @@
+package editor.model;
+
+public interface TileGrid {
+    public int getWidth();
+    public int getHeight();
+    public int getTileAt(int x, int y);
+    public void setTileAt(int x, int y, int tileID);
+    public void copyRegionTo(TileGrid destination, int fromX, int fromY, int toX, int toY, int regionWidth, int regionHeight);
+    public TileGrid copy();
+}
@@ -0,0 +1,55 @@
+package editor.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class TileGridSnapshot {
+    private final byte[] compressedTiles;
+    private final int width, height;
+
+    public TileGridSnapshot(TileGrid tiles) {
+        width = tiles.getWidth();
+        height = tiles.getHeight();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            new BinaryMapWriter(null, true).write(tiles, outputStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        compressedTiles = outputStream.toByteArray();
+    }
+
+    public TileGrid restore() {
+        try {
+            return new BinaryMapReader(null, null).read(new ByteArrayInputStream(compressedTiles));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void restoreInto(TileGrid destination) {
+        try {
+            new BinaryMapReader(null, null).read(new ByteArrayInputStream(compressedTiles), destination);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(compressedTiles);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getSizeInBytes() {
+        return 24 + compressedTiles.length;
+    }
+}
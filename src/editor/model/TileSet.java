@@ -0,0 +1,95 @@
+package editor.model;
+
+import com.google.gson.Gson;
+import editor.service.Utils;
+
+import java.util.*;
+
+public class TileSet {
+    private final List<TileType> tileTypes;
+    private final Map<Integer, TileType> tileIdToTileTypeMap;
+    private final boolean[] knownTileIDs;
+    private final TileAdjacencyMatrix tileAdjacencyMatrix;
+    private final TileTagIndex tagIndex;
+
+    private TileSet(List<TileType> _tileTypes) {
+        tileTypes = Collections.unmodifiableList(_tileTypes);
+        tileIdToTileTypeMap = new HashMap<Integer, TileType>();
+        int maxTileID = 0;
+        for (TileType t : _tileTypes) {
+            tileIdToTileTypeMap.put(t.getId(), t);
+            maxTileID = Math.max(maxTileID, t.getId());
+        }
+        knownTileIDs = new boolean[maxTileID + 1];
+        for (TileType t : _tileTypes)
+            if (t.getId() >= 0)
+                knownTileIDs[t.getId()] = true;
+        tileAdjacencyMatrix = new TileAdjacencyMatrix(_tileTypes);
+        tagIndex = new TileTagIndex(tileTypes);
+    }
+
+    public static TileSet loadFromJson(String jsonFileName) {
+        List<TileType> loadedTileTypes = new ArrayList<TileType>();
+        String jsonString = Utils.readFile(jsonFileName);
+        Map root = new Gson().fromJson(jsonString, Map.class);
+        List<Map<String, Object>> tiles = (List<Map<String, Object>>) root.get("tiles");
+        for (Map<String, Object> tile : tiles) {
+            TileType t = new TileType((int) Math.round((Double) tile.get("id")),
+                    (String) tile.get("name"), (String) tile.get("texture"), (Collection<String>) tile.get("tags"));
+            if (tile.get("wsw") != null)
+                t.setNeighbourMaterial(TileType.Side.WSW, (String)tile.get("wsw"));
+            if (tile.get("wnw") != null)
+                t.setNeighbourMaterial(TileType.Side.WNW, (String)tile.get("wnw"));
+            if (tile.get("nnw") != null)
+                t.setNeighbourMaterial(TileType.Side.NNW, (String)tile.get("nnw"));
+            if (tile.get("nne") != null)
+                t.setNeighbourMaterial(TileType.Side.NNE, (String)tile.get("nne"));
+            if (tile.get("ene") != null)
+                t.setNeighbourMaterial(TileType.Side.ENE, (String)tile.get("ene"));
+            if (tile.get("ese") != null)
+                t.setNeighbourMaterial(TileType.Side.ESE, (String)tile.get("ese"));
+            if (tile.get("sse") != null)
+                t.setNeighbourMaterial(TileType.Side.SSE, (String)tile.get("sse"));
+            if (tile.get("ssw") != null)
+                t.setNeighbourMaterial(TileType.Side.SSW, (String)tile.get("ssw"));
+            loadedTileTypes.add(t);
+        }
+        if (loadedTileTypes.isEmpty())
+            throw new RuntimeException("no tile types loaded :(");
+        return new TileSet(loadedTileTypes);
+    }
+
+    public List<TileType> getTileTypes() {
+        return tileTypes;
+    }
+
+    public TileType getTileType(int tileID) {
+        return tileIdToTileTypeMap.get(tileID);
+    }
+
+    public boolean[] getKnownTileIDs() {
+        return knownTileIDs;
+    }
+
+    public boolean isKnownTileID(int tileID) {
+        return tileID >= 0 && tileID < knownTileIDs.length && knownTileIDs[tileID];
+    }
+
+    public boolean containsAllTilesOf(TileGrid tiles) {
+        final int width = tiles.getWidth();
+        final int height = tiles.getHeight();
+        for (int j = 0; j < height; j++)
+            for (int i = 0; i < width; i++)
+                if (!isKnownTileID(tiles.getTileAt(i, j)))
+                    return false;
+        return true;
+    }
+
+    public TileAdjacencyMatrix getTileAdjacencyMatrix() {
+        return tileAdjacencyMatrix;
+    }
+
+    public TileTagIndex getTagIndex() {
+        return tagIndex;
+    }
+}
@@ -0,0 +1,96 @@
+package editor.model;
+
+import java.util.*;
+
+public class TileTagIndex {
+    private final List<TileType> tileTypes;
+    private final Map<String, BitSet> tileIndicesByTag;
+    private final Map<Integer, Integer> tileIndicesByTileID;
+    private final List<TileType> basicTileTypes;
+    private final Map<Integer, List<TileType>> relatedTileTypesByTileID;
+    private final Map<Set<String>, List<TileType>> tileTypesByTags;
+
+    public static final String COMMON_TAG = "COMMON";
+    private static final int MAX_CACHED_TAG_QUERIES = 256;
+
+    public TileTagIndex(List<TileType> _tileTypes) {
+        tileTypes = _tileTypes;
+        tileIndicesByTag = new HashMap<String, BitSet>();
+        tileIndicesByTileID = new HashMap<Integer, Integer>();
+        for (int k = 0; k < tileTypes.size(); k++) {
+            tileIndicesByTileID.put(tileTypes.get(k).getId(), k);
+            for (String tag : tileTypes.get(k).getTags()) {
+                BitSet tileIndices = tileIndicesByTag.get(tag);
+                if (tileIndices == null) {
+                    tileIndices = new BitSet(tileTypes.size());
+                    tileIndicesByTag.put(tag, tileIndices);
+                }
+                tileIndices.set(k);
+            }
+        }
+        basicTileTypes = getTileTypes(getTileIndices(COMMON_TAG));
+        relatedTileTypesByTileID = new HashMap<Integer, List<TileType>>();
+        tileTypesByTags = new LinkedHashMap<Set<String>, List<TileType>>(MAX_CACHED_TAG_QUERIES + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Set<String>, List<TileType>> eldest) {
+                return size() > MAX_CACHED_TAG_QUERIES;
+            }
+        };
+    }
+
+    public List<TileType> getBasicTileTypes() {
+        return basicTileTypes;
+    }
+
+    public synchronized List<TileType> getRelatedTileTypes(TileType tileType) {
+        List<TileType> relatedTileTypes = relatedTileTypesByTileID.get(tileType.getId());
+        if (relatedTileTypes == null || !isIndexed(tileType)) {
+            BitSet tileIndices = new BitSet(tileTypes.size());
+            for (String tag : tileType.getTags())
+                if (!tag.equals(COMMON_TAG))
+                    tileIndices.or(getTileIndices(tag));
+            relatedTileTypes = getTileTypes(tileIndices);
+            if (isIndexed(tileType))
+                relatedTileTypesByTileID.put(tileType.getId(), relatedTileTypes);
+        }
+        return relatedTileTypes;
+    }
+
+    public synchronized List<TileType> getTileTypesWithTags(Collection<String> tags) {
+        if (tags.isEmpty())
+            return Collections.emptyList();
+        Set<String> tagSet = new HashSet<String>(tags);
+        List<TileType> tileTypesWithTags = tileTypesByTags.get(tagSet);
+        if (tileTypesWithTags == null) {
+            BitSet tileIndices = null;
+            for (String tag : tagSet) {
+                if (tileIndices == null)
+                    tileIndices = (BitSet) getTileIndices(tag).clone();
+                else
+                    tileIndices.and(getTileIndices(tag));
+                if (tileIndices.isEmpty())
+                    break;
+            }
+            tileTypesWithTags = getTileTypes(tileIndices);
+            tileTypesByTags.put(tagSet, tileTypesWithTags);
+        }
+        return tileTypesWithTags;
+    }
+
+    private boolean isIndexed(TileType tileType) {
+        Integer tileIndex = tileIndicesByTileID.get(tileType.getId());
+        return tileIndex != null && tileTypes.get(tileIndex) == tileType;
+    }
+
+    private BitSet getTileIndices(String tag) {
+        BitSet tileIndices = tileIndicesByTag.get(tag);
+        return tileIndices == null ? new BitSet() : tileIndices;
+    }
+
+    private List<TileType> getTileTypes(BitSet tileIndices) {
+        List<TileType> result = new ArrayList<TileType>(tileIndices.cardinality());
+        for (int k = tileIndices.nextSetBit(0); k >= 0; k = tileIndices.nextSetBit(k + 1))
+            result.add(tileTypes.get(k));
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -4,7 +4,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.File;
 
 public class TileTypeComponent extends Box {
     private ActionListener actionListener;
@@ -65,7 +64,8 @@ public class TileTypeComponent extends Box {
         super(BoxLayout.X_AXIS);
         tileType = _tileType;
         button = new JButton();
-        ImageIcon icon = new ImageIcon(ModelManager.getInstance().getImageDirectoryName() + File.separator + tileType.getTexture());
+        Image texture = ModelManager.getInstance().getTextureAtlas().getTexture(tileType.getId());
+        ImageIcon icon = texture != null ? new ImageIcon(texture) : new ImageIcon();
         button.setIcon(icon);
         button.setPreferredSize(new Dimension(icon.getIconWidth(), icon.getIconHeight()));
         button.setToolTipText(tileType.tooltipText());
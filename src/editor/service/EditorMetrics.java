@@ -0,0 +1,232 @@
+package editor.service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EditorMetrics implements EditorMetricsMBean {
+    private final Histogram paintTime;
+    private final Histogram tilesDrawnPerFrame;
+    private final Histogram smartUpdateTime;
+    private final Histogram mapLoadTime;
+    private final Histogram mapSaveTime;
+    private final AtomicLong tilesRendered;
+    private final AtomicLong observerEvents;
+    private final AtomicLong commands;
+    private volatile boolean isOverlayVisible;
+
+    private static final EditorMetrics instance = new EditorMetrics();
+    public static final String OBJECT_NAME = "editor:type=EditorMetrics";
+
+    private EditorMetrics() {
+        paintTime = new Histogram();
+        tilesDrawnPerFrame = new Histogram();
+        smartUpdateTime = new Histogram();
+        mapLoadTime = new Histogram();
+        mapSaveTime = new Histogram();
+        tilesRendered = new AtomicLong();
+        observerEvents = new AtomicLong();
+        commands = new AtomicLong();
+    }
+
+    public static EditorMetrics getInstance() {
+        return instance;
+    }
+
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(objectName))
+                server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new RuntimeException("Can't register editor metrics: " + e.getMessage(), e);
+        }
+    }
+
+    public void recordPaint(long nanos, int tilesDrawn) {
+        paintTime.record(nanos);
+        tilesDrawnPerFrame.record(tilesDrawn);
+    }
+
+    public void addTilesRendered(int count) {
+        tilesRendered.addAndGet(count);
+    }
+
+    public void addObserverEvents(int count) {
+        observerEvents.addAndGet(count);
+    }
+
+    public void incrementCommands() {
+        commands.incrementAndGet();
+    }
+
+    public void recordSmartUpdate(long nanos) {
+        smartUpdateTime.record(nanos);
+    }
+
+    public void recordMapLoad(long nanos) {
+        mapLoadTime.record(nanos);
+    }
+
+    public void recordMapSave(long nanos) {
+        mapSaveTime.record(nanos);
+    }
+
+    public Histogram getPaintTime() {
+        return paintTime;
+    }
+
+    public Histogram getSmartUpdateTime() {
+        return smartUpdateTime;
+    }
+
+    public Histogram getMapLoadTime() {
+        return mapLoadTime;
+    }
+
+    public Histogram getMapSaveTime() {
+        return mapSaveTime;
+    }
+
+    @Override
+    public long getPaintCount() {
+        return paintTime.getCount();
+    }
+
+    @Override
+    public double getPaintTimeMeanMillis() {
+        return paintTime.getMean() / 1e6;
+    }
+
+    @Override
+    public double getPaintTimeP50Millis() {
+        return paintTime.getPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getPaintTimeP99Millis() {
+        return paintTime.getPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getPaintTimeMaxMillis() {
+        return paintTime.getMax() / 1e6;
+    }
+
+    @Override
+    public double getTilesDrawnPerFrameMean() {
+        return tilesDrawnPerFrame.getMean();
+    }
+
+    @Override
+    public long getTilesRenderedCount() {
+        return tilesRendered.get();
+    }
+
+    @Override
+    public long getObserverEventCount() {
+        return observerEvents.get();
+    }
+
+    @Override
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    @Override
+    public long getSmartUpdateCount() {
+        return smartUpdateTime.getCount();
+    }
+
+    @Override
+    public double getSmartUpdateTimeMeanMicros() {
+        return smartUpdateTime.getMean() / 1e3;
+    }
+
+    @Override
+    public double getSmartUpdateTimeP99Micros() {
+        return smartUpdateTime.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public long getMapLoadCount() {
+        return mapLoadTime.getCount();
+    }
+
+    @Override
+    public double getMapLoadTimeMeanMillis() {
+        return mapLoadTime.getMean() / 1e6;
+    }
+
+    @Override
+    public double getMapLoadTimeMaxMillis() {
+        return mapLoadTime.getMax() / 1e6;
+    }
+
+    @Override
+    public long getMapSaveCount() {
+        return mapSaveTime.getCount();
+    }
+
+    @Override
+    public double getMapSaveTimeMeanMillis() {
+        return mapSaveTime.getMean() / 1e6;
+    }
+
+    @Override
+    public double getMapSaveTimeMaxMillis() {
+        return mapSaveTime.getMax() / 1e6;
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public long getHeapMaxBytes() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    @Override
+    public boolean isOverlayVisible() {
+        return isOverlayVisible;
+    }
+
+    @Override
+    public void setOverlayVisible(boolean _isOverlayVisible) {
+        isOverlayVisible = _isOverlayVisible;
+    }
+
+    @Override
+    public void reset() {
+        paintTime.reset();
+        tilesDrawnPerFrame.reset();
+        smartUpdateTime.reset();
+        mapLoadTime.reset();
+        mapSaveTime.reset();
+        tilesRendered.set(0);
+        observerEvents.set(0);
+        commands.set(0);
+    }
+
+    public List<String> getSummaryLines() {
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format("paint: %.2f ms p50, %.2f ms p99, %.2f ms max (%d frames)",
+                getPaintTimeP50Millis(), getPaintTimeP99Millis(), getPaintTimeMaxMillis(), getPaintCount()));
+        lines.add(String.format("tiles: %.0f drawn/frame, %d rendered", getTilesDrawnPerFrameMean(), getTilesRenderedCount()));
+        lines.add(String.format("smart update: %.1f us mean, %.1f us p99 (%d)",
+                getSmartUpdateTimeMeanMicros(), getSmartUpdateTimeP99Micros(), getSmartUpdateCount()));
+        lines.add(String.format("commands: %d, observer events: %d", getCommandCount(), getObserverEventCount()));
+        lines.add(String.format("load: %.1f ms mean (%d), save: %.1f ms mean (%d)",
+                getMapLoadTimeMeanMillis(), getMapLoadCount(), getMapSaveTimeMeanMillis(), getMapSaveCount()));
+        lines.add(String.format("heap: %d / %d MB", getHeapUsedBytes() >> 20, getHeapMaxBytes() >> 20));
+        return lines;
+    }
+}
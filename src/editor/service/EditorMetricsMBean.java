@@ -0,0 +1,27 @@
+package editor.service;
+
+public interface EditorMetricsMBean {
+    long getPaintCount();
+    double getPaintTimeMeanMillis();
+    double getPaintTimeP50Millis();
+    double getPaintTimeP99Millis();
+    double getPaintTimeMaxMillis();
+    double getTilesDrawnPerFrameMean();
+    long getTilesRenderedCount();
+    long getObserverEventCount();
+    long getCommandCount();
+    long getSmartUpdateCount();
+    double getSmartUpdateTimeMeanMicros();
+    double getSmartUpdateTimeP99Micros();
+    long getMapLoadCount();
+    double getMapLoadTimeMeanMillis();
+    double getMapLoadTimeMaxMillis();
+    long getMapSaveCount();
+    double getMapSaveTimeMeanMillis();
+    double getMapSaveTimeMaxMillis();
+    long getHeapUsedBytes();
+    long getHeapMaxBytes();
+    boolean isOverlayVisible();
+    void setOverlayVisible(boolean _isOverlayVisible);
+    void reset();
+}
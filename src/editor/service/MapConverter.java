@@ -0,0 +1,28 @@
+package editor.service;
+
+import editor.model.*;
+
+import java.io.*;
+
+public class MapConverter {
+    private MapConverter() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MapConverter <source map> <destination map> [configuration name]");
+            System.err.println("Map format is selected by file extension: \".json\", \"" + BinaryMapFormat.FILE_EXTENSION + "\" or \"" + MappedTileGrid.FILE_EXTENSION + "\"");
+            System.exit(1);
+        }
+        convert(new File(args[0]), new File(args[1]), args.length > 2 ? args[2] : null);
+    }
+
+    public static void convert(File source, File destination, String configName) throws IOException {
+        TileGrid tiles = MapFiles.read(source, null, null, null);
+        try {
+            MapFiles.write(tiles, destination, configName, null);
+        } finally {
+            if (tiles instanceof MappedTileGrid)
+                ((MappedTileGrid) tiles).close();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package editor.service;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class TextureAtlas {
+    private final String imageDirectory;
+    private final Map<Integer, String> textureFileNames;
+    private final BufferedImage atlasImage;
+    private final Map<String, Rectangle> boundsByFileName;
+    private final Map<Integer, BufferedImage> textures;
+    private final Map<Long, ImageIcon> icons;
+
+    private TextureAtlas(String _imageDirectory, Map<Integer, String> _textureFileNames, BufferedImage _atlasImage, Map<String, Rectangle> _boundsByFileName) {
+        imageDirectory = _imageDirectory;
+        textureFileNames = _textureFileNames;
+        atlasImage = _atlasImage;
+        boundsByFileName = _boundsByFileName;
+        textures = new HashMap<Integer, BufferedImage>();
+        icons = new HashMap<Long, ImageIcon>();
+    }
+
+    public static TextureAtlas build(String imageDirectory, Map<Integer, String> textureFileNames, ExecutorService decodeExecutor) {
+        List<String> fileNames = new ArrayList<String>(new LinkedHashSet<String>(textureFileNames.values()));
+        List<Future<BufferedImage>> decodedImages = new ArrayList<Future<BufferedImage>>(fileNames.size());
+        for (final String fileName : fileNames) {
+            final File file = new File(imageDirectory, fileName);
+            decodedImages.add(decodeExecutor.submit(new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() throws IOException {
+                    return ImageIO.read(file);
+                }
+            }));
+        }
+
+        Map<String, BufferedImage> imagesByFileName = new LinkedHashMap<String, BufferedImage>();
+        for (int k = 0; k < fileNames.size(); k++) {
+            try {
+                BufferedImage image = decodedImages.get(k).get();
+                if (image != null)
+                    imagesByFileName.put(fileNames.get(k), image);
+            } catch (ExecutionException e) {
+                System.err.println("Can't read texture \"" + new File(imageDirectory, fileNames.get(k)) + "\": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Texture loading was interrupted", e);
+            }
+        }
+
+        Map<String, Rectangle> boundsByFileName = pack(imagesByFileName);
+        int atlasWidth = 1, atlasHeight = 1;
+        for (Rectangle bounds : boundsByFileName.values()) {
+            atlasWidth = Math.max(atlasWidth, bounds.x + bounds.width);
+            atlasHeight = Math.max(atlasHeight, bounds.y + bounds.height);
+        }
+        BufferedImage atlasImage = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlasImage.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        for (Map.Entry<String, BufferedImage> entry : imagesByFileName.entrySet()) {
+            Rectangle bounds = boundsByFileName.get(entry.getKey());
+            g.drawImage(entry.getValue(), bounds.x, bounds.y, null);
+        }
+        g.dispose();
+        return new TextureAtlas(imageDirectory, new HashMap<Integer, String>(textureFileNames), atlasImage, boundsByFileName);
+    }
+
+    private static Map<String, Rectangle> pack(Map<String, BufferedImage> imagesByFileName) {
+        List<Map.Entry<String, BufferedImage>> entries = new ArrayList<Map.Entry<String, BufferedImage>>(imagesByFileName.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, BufferedImage>>() {
+            @Override
+            public int compare(Map.Entry<String, BufferedImage> first, Map.Entry<String, BufferedImage> second) {
+                return second.getValue().getHeight() - first.getValue().getHeight();
+            }
+        });
+        long totalArea = 0;
+        int maxWidth = 0;
+        for (Map.Entry<String, BufferedImage> entry : entries) {
+            totalArea += (long) entry.getValue().getWidth() * entry.getValue().getHeight();
+            maxWidth = Math.max(maxWidth, entry.getValue().getWidth());
+        }
+        final int shelfWidth = Math.max(maxWidth, (int) Math.ceil(Math.sqrt(totalArea)));
+        Map<String, Rectangle> boundsByFileName = new HashMap<String, Rectangle>();
+        int x = 0, y = 0, shelfHeight = 0;
+        for (Map.Entry<String, BufferedImage> entry : entries) {
+            final int width = entry.getValue().getWidth();
+            final int height = entry.getValue().getHeight();
+            if (x + width > shelfWidth) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            boundsByFileName.put(entry.getKey(), new Rectangle(x, y, width, height));
+            x += width;
+            shelfHeight = Math.max(shelfHeight, height);
+        }
+        return boundsByFileName;
+    }
+
+    public String getImageDirectory() {
+        return imageDirectory;
+    }
+
+    public Map<Integer, String> getTextureFileNames() {
+        return Collections.unmodifiableMap(textureFileNames);
+    }
+
+    public BufferedImage getAtlasImage() {
+        return atlasImage;
+    }
+
+    public Rectangle getBounds(int tileID) {
+        final String fileName = textureFileNames.get(tileID);
+        return fileName == null ? null : boundsByFileName.get(fileName);
+    }
+
+    public boolean hasTexture(int tileID) {
+        return getBounds(tileID) != null;
+    }
+
+    public synchronized BufferedImage getTexture(int tileID) {
+        BufferedImage texture = textures.get(tileID);
+        if (texture == null) {
+            Rectangle bounds = getBounds(tileID);
+            if (bounds == null)
+                return null;
+            texture = atlasImage.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
+            textures.put(tileID, texture);
+        }
+        return texture;
+    }
+
+    public boolean drawTexture(Graphics g, int tileID, int x, int y, int width, int height) {
+        Rectangle bounds = getBounds(tileID);
+        if (bounds == null)
+            return false;
+        g.drawImage(atlasImage, x, y, x + width, y + height, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height, null);
+        return true;
+    }
+
+    public synchronized ImageIcon getIcon(int tileID, int size) {
+        final long iconKey = ((long) tileID << 32) | size;
+        ImageIcon icon = icons.get(iconKey);
+        if (icon == null) {
+            BufferedImage iconImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = iconImage.createGraphics();
+            drawTexture(g, tileID, 0, 0, size, size);
+            g.dispose();
+            icon = new ImageIcon(iconImage);
+            icons.put(iconKey, icon);
+        }
+        return icon;
+    }
+}
@@ -0,0 +1,59 @@
+package editor.service;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class TextureService {
+    private final ExecutorService decodeExecutor;
+    private final Map<String, TextureAtlas> atlases;
+
+    private static TextureService instance;
+    private static final int MAX_CACHED_ATLASES = 4;
+
+    private TextureService() {
+        decodeExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            private int threadCount;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "texture-decoder-" + ++threadCount);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        atlases = new LinkedHashMap<String, TextureAtlas>(MAX_CACHED_ATLASES + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TextureAtlas> eldest) {
+                return size() > MAX_CACHED_ATLASES;
+            }
+        };
+    }
+
+    public static synchronized TextureService getInstance() {
+        if (instance == null)
+            instance = new TextureService();
+        return instance;
+    }
+
+    public synchronized TextureAtlas getAtlas(String imageDirectory, Map<Integer, String> textureFileNames) {
+        final String atlasKey = new File(imageDirectory).getAbsolutePath();
+        TextureAtlas atlas = atlases.get(atlasKey);
+        if (atlas == null || !atlas.getTextureFileNames().equals(textureFileNames)) {
+            atlas = TextureAtlas.build(imageDirectory, textureFileNames, decodeExecutor);
+            atlases.put(atlasKey, atlas);
+        }
+        return atlas;
+    }
+
+    public ExecutorService getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public synchronized void invalidate(String imageDirectory) {
+        atlases.remove(new File(imageDirectory).getAbsolutePath());
+    }
+}
@@ -0,0 +1,68 @@
+package editor.test;
+
+import editor.model.*;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AutoTilerTests extends TestCase {
+    private AutoTiler autoTiler;
+
+    @Override
+    public void setUp() {
+        List<TileType> tileTypes = new ArrayList<TileType>();
+        TileType grass = new TileType(1, "GRASS", "grass.png", new ArrayList<String>());
+        grass.setNeighbourMaterial(null, "GRASS");
+        tileTypes.add(grass);
+        TileType dirt = new TileType(2, "DIRT", "dirt.png", new ArrayList<String>());
+        dirt.setNeighbourMaterial(null, "DIRT");
+        tileTypes.add(dirt);
+        TileType grassToDirt = new TileType(3, "GRASS_TO_DIRT", "grassToDirt.png", new ArrayList<String>());
+        grassToDirt.setNeighbourMaterial(null, "GRASS");
+        grassToDirt.setNeighbourMaterial(TileType.Side.ENE, "DIRT");
+        grassToDirt.setNeighbourMaterial(TileType.Side.ESE, "DIRT");
+        grassToDirt.setNeighbourMaterial(TileType.Side.NNE, "DIRT");
+        grassToDirt.setNeighbourMaterial(TileType.Side.SSE, "DIRT");
+        tileTypes.add(grassToDirt);
+        autoTiler = new AutoTiler(new TileAdjacencyMatrix(tileTypes));
+    }
+
+    public void test_solveKeepsConsistentTiles() {
+        TileGrid tiles = new ArrayTileGrid(3, 1);
+        tiles.setTileAt(0, 0, 1);
+        tiles.setTileAt(1, 0, 1);
+        tiles.setTileAt(2, 0, 1);
+        AutoTiler.Result result = autoTiler.solve(tiles, AutoTileRegion.rectangle(tiles, 0, 0, 3, 1));
+        Assert.assertEquals(0, result.getChangedTileCount());
+        Assert.assertEquals(0, result.getConflictCount());
+    }
+
+    public void test_solveInsertsTransitionBetweenFixedTiles() {
+        TileGrid tiles = new ArrayTileGrid(3, 1);
+        tiles.setTileAt(0, 0, 1);
+        tiles.setTileAt(1, 0, 2);
+        tiles.setTileAt(2, 0, 2);
+        AutoTiler.Result result = autoTiler.solve(tiles, AutoTileRegion.rectangle(tiles, 1, 0, 1, 1));
+        Assert.assertEquals(1, result.getChangedTileCount());
+        Assert.assertEquals(1, result.getDeltas().getRunX(0));
+        Assert.assertEquals(2, result.getDeltas().getOldTileIdAt(0));
+        Assert.assertEquals(3, result.getDeltas().getNewTileIdAt(0));
+        Assert.assertEquals(0, result.getConflictCount());
+    }
+
+    public void test_floodRegionIncludesBorder() {
+        TileGrid tiles = new ArrayTileGrid(5, 5);
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++)
+                tiles.setTileAt(i, j, 1);
+        tiles.setTileAt(2, 2, 2);
+        AutoTileRegion region = AutoTileRegion.flood(tiles, 2, 2);
+        Assert.assertTrue(region.contains(2, 2));
+        Assert.assertTrue(region.contains(1, 1));
+        Assert.assertTrue(region.contains(3, 3));
+        Assert.assertFalse(region.contains(0, 0));
+        Assert.assertFalse(region.contains(4, 2));
+    }
+}
@@ -0,0 +1,86 @@
+package editor.test;
+
+import editor.model.ArrayTileGrid;
+import editor.model.BinaryMapReader;
+import editor.model.BinaryMapWriter;
+import editor.model.TileGrid;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class BinaryMapTests extends TestCase {
+    public void test_roundTripWithSmallPalette() throws IOException {
+        TileGrid tiles = new ArrayTileGrid(3, 2);
+        tiles.setTileAt(0, 0, 1);
+        tiles.setTileAt(1, 0, 8);
+        tiles.setTileAt(2, 1, 9);
+        assertRoundTrip(tiles, false);
+        assertRoundTrip(tiles, true);
+    }
+
+    public void test_roundTripWithLargePalette() throws IOException {
+        TileGrid tiles = new ArrayTileGrid(40, 30);
+        for (int i = 0; i < 40; i++)
+            for (int j = 0; j < 30; j++)
+                tiles.setTileAt(i, j, i * 30 + j);
+        assertRoundTrip(tiles, false);
+        assertRoundTrip(tiles, true);
+    }
+
+    public void test_throwExceptionWhenTileIdIsUnknown() throws IOException {
+        TileGrid tiles = new ArrayTileGrid(1, 1);
+        tiles.setTileAt(0, 0, 3);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new BinaryMapWriter("config1", true).write(tiles, os);
+        try {
+            new BinaryMapReader(new boolean[] {false, true}, "config1").read(new ByteArrayInputStream(os.toByteArray()));
+            fail();
+        }
+        catch (RuntimeException e) {
+            Assert.assertEquals("No such tile type with ID=3 exists in currentConfig \"config1\"!", e.getMessage());
+        }
+    }
+
+    public void test_throwExceptionWhenConfigurationDiffers() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new BinaryMapWriter("config1", true).write(new ArrayTileGrid(2, 2), os);
+        try {
+            new BinaryMapReader(null, "config2").read(new ByteArrayInputStream(os.toByteArray()));
+            fail();
+        }
+        catch (IOException e) {
+            Assert.assertEquals("Map belongs to configuration \"config1\", not to \"config2\"", e.getMessage());
+        }
+    }
+
+    public void test_throwExceptionWhenPaletteIndexSizeIsInvalid() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new BinaryMapWriter(null, false).write(new ArrayTileGrid(2, 2), os);
+        byte[] bytes = os.toByteArray();
+        // header: magic, version, compression, width, height, empty name, palette size, one palette entry
+        final int bytesPerIndexOffset = 4 + 2 + 1 + 4 + 4 + 2 + 4 + 2;
+        Assert.assertEquals(1, bytes[bytesPerIndexOffset]);
+        bytes[bytesPerIndexOffset] = 3;
+        try {
+            new BinaryMapReader(null, null).read(new ByteArrayInputStream(bytes));
+            fail();
+        }
+        catch (IOException e) {
+            Assert.assertEquals("Unsupported palette index size of 3 bytes", e.getMessage());
+        }
+    }
+
+    private static void assertRoundTrip(TileGrid tiles, boolean isCompressed) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new BinaryMapWriter("config1", isCompressed).write(tiles, os);
+        TileGrid readTiles = new BinaryMapReader(null, null).read(new ByteArrayInputStream(os.toByteArray()));
+        Assert.assertEquals(tiles.getWidth(), readTiles.getWidth());
+        Assert.assertEquals(tiles.getHeight(), readTiles.getHeight());
+        for (int i = 0; i < tiles.getWidth(); i++)
+            for (int j = 0; j < tiles.getHeight(); j++)
+                Assert.assertEquals(tiles.getTileAt(i, j), readTiles.getTileAt(i, j));
+    }
+}
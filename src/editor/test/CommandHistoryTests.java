@@ -0,0 +1,55 @@
+package editor.test;
+
+import editor.model.CommandHistory;
+import editor.model.SizedCommand;
+import editor.model.TileDeltas;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class CommandHistoryTests extends TestCase {
+    public void test_tileDeltasPackRowRuns() {
+        TileDeltas deltas = new TileDeltas();
+        deltas.add(3, 5, 1, 2);
+        deltas.add(4, 5, 1, 3);
+        deltas.add(5, 5, 2, 3);
+        deltas.add(3, 6, 4, 1);
+        Assert.assertEquals(4, deltas.getChangeCount());
+        Assert.assertEquals(2, deltas.getRunCount());
+        Assert.assertEquals(3, deltas.getRunLength(0));
+        Assert.assertEquals(3, deltas.getRunX(1));
+        Assert.assertEquals(6, deltas.getRunY(1));
+        Assert.assertEquals(2, deltas.getOldTileIdAt(2));
+        Assert.assertEquals(3, deltas.getNewTileIdAt(2));
+    }
+
+    public void test_oldestCommandsAreEvictedOverMemoryLimit() {
+        CommandHistory history = new CommandHistory(250);
+        for (int i = 0; i < 5; i++)
+            history.add(new FixedSizeCommand(100));
+        Assert.assertEquals(2, history.size());
+        Assert.assertEquals(200, history.getSizeInBytes());
+        history.add(new FixedSizeCommand(1000));
+        Assert.assertEquals(1, history.size());
+        Assert.assertNotNull(history.removeLast());
+        Assert.assertEquals(0, history.getSizeInBytes());
+    }
+
+    private static class FixedSizeCommand implements SizedCommand {
+        private final long size;
+
+        private FixedSizeCommand(long _size) {
+            size = _size;
+        }
+
+        @Override
+        public void perform() { }
+
+        @Override
+        public void undo() { }
+
+        @Override
+        public long getSizeInBytes() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package editor.test;
+
+import editor.model.ConfigurationRegistry;
+import editor.model.TileSet;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class ConfigurationRegistryTests extends TestCase {
+    public static void test_tileSetIsLoadedOnce() {
+        ConfigurationRegistry registry = new ConfigurationRegistry("configurations", "tileTypes.json");
+        Assert.assertTrue(registry.getConfigurations().contains("config1"));
+        TileSet tileSet = registry.getTileSet("config1");
+        Assert.assertSame(tileSet, registry.getTileSet("config1"));
+        Assert.assertFalse(tileSet.getTileTypes().isEmpty());
+        Assert.assertTrue(tileSet.isKnownTileID(tileSet.getTileTypes().get(0).getId()));
+        Assert.assertFalse(tileSet.isKnownTileID(-1));
+    }
+}
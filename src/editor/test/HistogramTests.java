@@ -0,0 +1,33 @@
+package editor.test;
+
+import editor.service.Histogram;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class HistogramTests extends TestCase {
+    public static void test_percentilesAreWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (int k = 1; k <= 1000; k++)
+            histogram.record(k * 1000L);
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000000L, histogram.getMax());
+        Assert.assertEquals(500500.0, histogram.getMean(), 1e-6);
+        final long median = histogram.getPercentile(50);
+        Assert.assertTrue(median >= 500000 && median <= 500000 * 5 / 4);
+        final long p99 = histogram.getPercentile(99);
+        Assert.assertTrue(p99 >= 990000 && p99 <= 1000000);
+        Assert.assertEquals(1000000L, histogram.getPercentile(100));
+    }
+
+    public static void test_smallValuesAndReset() {
+        Histogram histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(3);
+        histogram.record(-5);
+        Assert.assertEquals(0, histogram.getPercentile(50));
+        Assert.assertEquals(3, histogram.getPercentile(100));
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getPercentile(99));
+    }
+}
@@ -0,0 +1,99 @@
+package editor.test;
+
+import editor.cli.MapBatchTool;
+import editor.model.*;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MapBatchToolTests extends TestCase {
+    private static File writeJsonMap(File directory, String name, TileGrid tiles) throws IOException {
+        File file = new File(directory, name);
+        Writer w = new FileWriter(file);
+        try {
+            new JsonMapWriter().write(tiles, w);
+        } finally {
+            w.close();
+        }
+        return file;
+    }
+
+    private static File createTemporaryDirectory() throws IOException {
+        File directory = File.createTempFile("batch", "");
+        directory.delete();
+        directory.mkdirs();
+        return directory;
+    }
+
+    public static void test_validateAndConvertInParallel() throws IOException {
+        TileSet tileSet = new ConfigurationRegistry("configurations", "tileTypes.json").getTileSet("config1");
+        final int knownTileID = tileSet.getTileTypes().get(0).getId();
+        File directory = createTemporaryDirectory();
+        TileGrid validTiles = new ArrayTileGrid(6, 4);
+        for (int j = 0; j < 4; j++)
+            for (int i = 0; i < 6; i++)
+                validTiles.setTileAt(i, j, knownTileID);
+        TileGrid invalidTiles = validTiles.copy();
+        invalidTiles.setTileAt(2, 3, 4000);
+        List<File> mapFiles = new ArrayList<File>();
+        mapFiles.add(writeJsonMap(directory, "valid.json", validTiles));
+        mapFiles.add(writeJsonMap(directory, "invalid.json", invalidTiles));
+
+        MapBatchTool tool = new MapBatchTool(tileSet, "config1", MapBatchTool.Operation.CONVERT, BinaryMapFormat.FILE_EXTENSION,
+                -1, -1, knownTileID, null, 2);
+        List<MapBatchTool.Result> results = tool.process(mapFiles);
+        Assert.assertEquals(MapBatchTool.Status.OK, results.get(0).getStatus());
+        Assert.assertEquals(MapBatchTool.Status.INVALID, results.get(1).getStatus());
+        Assert.assertTrue(results.get(1).getMessage().contains("ID=4000 at (2, 3)"));
+
+        File convertedFile = results.get(0).getOutputFile();
+        Assert.assertEquals(new File(directory, "valid.bmap").getAbsolutePath(), convertedFile.getAbsolutePath());
+        InputStream is = new FileInputStream(convertedFile);
+        try {
+            TileGrid converted = new BinaryMapReader(null, "config1").read(is);
+            Assert.assertEquals(6, converted.getWidth());
+            Assert.assertEquals(knownTileID, converted.getTileAt(5, 3));
+        } finally {
+            is.close();
+        }
+        Assert.assertFalse(new File(directory, "invalid.bmap").exists());
+        for (File f : directory.listFiles())
+            f.delete();
+        directory.delete();
+    }
+
+    public static void test_resizeMappedMapInPlace() throws IOException {
+        TileSet tileSet = new ConfigurationRegistry("configurations", "tileTypes.json").getTileSet("config1");
+        final int knownTileID = tileSet.getTileTypes().get(0).getId();
+        final int fillTileID = tileSet.getTileTypes().get(1).getId();
+        File directory = createTemporaryDirectory();
+        TileGrid tiles = new ArrayTileGrid(3, 2);
+        for (int j = 0; j < 2; j++)
+            for (int i = 0; i < 3; i++)
+                tiles.setTileAt(i, j, knownTileID);
+        File mapFile = new File(directory, "map.mmap");
+        MapFiles.write(tiles, mapFile, "config1", null);
+
+        List<File> mapFiles = new ArrayList<File>();
+        mapFiles.add(mapFile);
+        MapBatchTool tool = new MapBatchTool(tileSet, "config1", MapBatchTool.Operation.RESIZE, null, 4, 3, fillTileID, null, 1);
+        List<MapBatchTool.Result> results = tool.process(mapFiles);
+        Assert.assertEquals(results.get(0).getMessage(), MapBatchTool.Status.OK, results.get(0).getStatus());
+        MappedTileGrid resizedTiles = MappedTileGrid.open(mapFile);
+        try {
+            Assert.assertEquals(4, resizedTiles.getWidth());
+            Assert.assertEquals(3, resizedTiles.getHeight());
+            Assert.assertEquals(knownTileID, resizedTiles.getTileAt(2, 1));
+            Assert.assertEquals(fillTileID, resizedTiles.getTileAt(3, 0));
+            Assert.assertEquals(fillTileID, resizedTiles.getTileAt(0, 2));
+        } finally {
+            resizedTiles.close();
+        }
+        for (File f : directory.listFiles())
+            f.delete();
+        directory.delete();
+    }
+}
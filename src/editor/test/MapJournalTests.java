@@ -0,0 +1,111 @@
+package editor.test;
+
+import editor.model.ArrayTileGrid;
+import editor.model.MapJournal;
+import editor.model.TileGrid;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class MapJournalTests extends TestCase {
+    private File createJournalDirectory() throws IOException {
+        File directory = File.createTempFile("mapJournal", "");
+        directory.delete();
+        directory.mkdirs();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private void deleteJournalDirectory(File directory) {
+        for (File f : directory.listFiles())
+            f.delete();
+        directory.delete();
+    }
+
+    public void test_recoverReplaysJournalOverSnapshot() throws IOException {
+        File directory = createJournalDirectory();
+        TileGrid tiles = new ArrayTileGrid(4, 3);
+        tiles.setTileAt(0, 0, 1);
+        MapJournal journal = new MapJournal(directory, null);
+        journal.checkpoint(tiles, "maps/test.json");
+        journal.recordTile(1, 2, 7);
+        journal.recordTile(3, 0, 5);
+        journal.commit();
+        journal.recordMapPath("maps/renamed.json");
+        journal.recordTile(1, 2, 8);
+        journal.close(false);
+
+        MapJournal.RecoveredMap recoveredMap = MapJournal.recover(directory, null, null);
+        Assert.assertEquals("maps/renamed.json", recoveredMap.getMapPath());
+        Assert.assertEquals(1, recoveredMap.getTiles().getTileAt(0, 0));
+        Assert.assertEquals(8, recoveredMap.getTiles().getTileAt(1, 2));
+        Assert.assertEquals(5, recoveredMap.getTiles().getTileAt(3, 0));
+
+        new MapJournal(directory, null).close(true);
+        Assert.assertFalse(MapJournal.hasRecoverableMap(directory));
+        deleteJournalDirectory(directory);
+    }
+
+    public void test_recoverIgnoresTruncatedLastRecord() throws IOException {
+        File directory = createJournalDirectory();
+        MapJournal journal = new MapJournal(directory, null);
+        journal.checkpoint(new ArrayTileGrid(2, 2), "");
+        journal.recordTile(1, 1, 3);
+        journal.close(false);
+        FileOutputStream journalOutput = new FileOutputStream(new File(directory, MapJournal.JOURNAL_FILE_NAME), true);
+        journalOutput.write(new byte[] {1, 0, 0, 0, 2, 0});
+        journalOutput.close();
+
+        MapJournal.RecoveredMap recoveredMap = MapJournal.recover(directory, null, null);
+        Assert.assertEquals(3, recoveredMap.getTiles().getTileAt(1, 1));
+        new MapJournal(directory, null).close(true);
+        deleteJournalDirectory(directory);
+    }
+
+    public void test_keepAsideMovesJournalToUnusedBackupNames() throws IOException {
+        File directory = createJournalDirectory();
+        TileGrid tiles = new ArrayTileGrid(2, 2);
+        tiles.setTileAt(1, 0, 6);
+        MapJournal journal = new MapJournal(directory, "config1");
+        journal.checkpoint(tiles, "maps/lost.json");
+        journal.recordTile(0, 1, 4);
+        journal.close(false);
+        File keptSnapshotFile = MapJournal.keepAside(directory);
+        Assert.assertEquals(MapJournal.SNAPSHOT_FILE_NAME + ".1" + MapJournal.BACKUP_FILE_SUFFIX, keptSnapshotFile.getName());
+        Assert.assertFalse(MapJournal.hasRecoverableMap(directory));
+
+        MapJournal newJournal = new MapJournal(directory, "config1");
+        newJournal.checkpoint(new ArrayTileGrid(3, 3), "");
+        newJournal.close(false);
+        Assert.assertEquals(MapJournal.SNAPSHOT_FILE_NAME + ".2" + MapJournal.BACKUP_FILE_SUFFIX, MapJournal.keepAside(directory).getName());
+        Assert.assertNull(MapJournal.keepAside(directory));
+
+        File backupDirectory = createJournalDirectory();
+        keptSnapshotFile.renameTo(new File(backupDirectory, MapJournal.SNAPSHOT_FILE_NAME));
+        new File(directory, MapJournal.JOURNAL_FILE_NAME + ".1" + MapJournal.BACKUP_FILE_SUFFIX).renameTo(new File(backupDirectory, MapJournal.JOURNAL_FILE_NAME));
+        MapJournal.RecoveredMap recoveredMap = MapJournal.recover(backupDirectory, null, "config1");
+        Assert.assertEquals("maps/lost.json", recoveredMap.getMapPath());
+        Assert.assertEquals(6, recoveredMap.getTiles().getTileAt(1, 0));
+        Assert.assertEquals(4, recoveredMap.getTiles().getTileAt(0, 1));
+        deleteJournalDirectory(directory);
+        deleteJournalDirectory(backupDirectory);
+    }
+
+    public void test_recoverRefusesSnapshotOfOtherConfiguration() throws IOException {
+        File directory = createJournalDirectory();
+        MapJournal journal = new MapJournal(directory, "config1");
+        journal.checkpoint(new ArrayTileGrid(2, 2), "");
+        journal.close(false);
+        try {
+            MapJournal.recover(directory, null, "config2");
+            fail();
+        }
+        catch (IOException e) {
+            Assert.assertEquals("The unsaved map was made with configuration \"config1\", but \"config2\" is open now", e.getMessage());
+        }
+        deleteJournalDirectory(directory);
+    }
+}
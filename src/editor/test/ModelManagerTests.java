@@ -1,12 +1,19 @@
 package editor.test;
 
+import editor.model.MacroCommand;
+import editor.model.MapProgressListener;
+import editor.model.MappedTileGrid;
 import editor.model.ModelManager;
+import editor.model.TileGrid;
 import editor.model.TileType;
+import editor.service.Utils;
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class ModelManagerTests extends TestCase {
     public static void test_getBasicTileTypes() {
@@ -57,10 +64,232 @@ public class ModelManagerTests extends TestCase {
         Assert.assertEquals("[[1,2][8,10][9,3]]", modelManager.getMapStringRepresentation());
     }
 
+    public static void test_saveMapAsJson() throws IOException {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        File file = File.createTempFile("littleMap", ".json");
+        file.deleteOnExit();
+        modelManager.saveMapAsJson(file);
+        Assert.assertEquals("{\"width\" : 3,\"height\" : 2,\"tiles\" : [[1,2],\t[8,10],\t[9,3]]}", Utils.readFile(file.getAbsolutePath()));
+        modelManager.openMapFromJson(file.getAbsolutePath());
+        Assert.assertEquals("[[1,2][8,10][9,3]]", modelManager.getMapStringRepresentation());
+    }
+
+    public static void test_tileChangesAreCoalescedPerCommand() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final List<ModelManager.ModelManagerUpdateInfo> updates = new ArrayList<ModelManager.ModelManagerUpdateInfo>();
+        Observer observer = new Observer() {
+            @Override
+            public void update(Observable o, Object arg) {
+                ModelManager.ModelManagerUpdateInfo updateInfo = (ModelManager.ModelManagerUpdateInfo) arg;
+                if (updateInfo.getUpdateType() != ModelManager.ModelManagerUpdateType.COMMAND_LIST_CHANGED)
+                    updates.add(updateInfo);
+            }
+        };
+        modelManager.registerObserver(observer);
+        try {
+            MacroCommand macroCommand = new MacroCommand();
+            modelManager.beginTileChanges();
+            macroCommand.addCommand(modelManager.new UpdateTileAtCommand(0, 0, 3));
+            macroCommand.addCommand(modelManager.new UpdateTileAtCommand(2, 1, 1));
+            modelManager.endTileChanges();
+            Assert.assertEquals(1, updates.size());
+            Assert.assertEquals(ModelManager.ModelManagerUpdateType.REGION_UPDATE, updates.get(0).getUpdateType());
+            Assert.assertEquals("[0, 0, 3, 2]", Arrays.toString((int[]) updates.get(0).getArguments()));
+            updates.clear();
+            modelManager.performCommand(modelManager.new UpdateTileAtCommand(1, 1, 9));
+            Assert.assertEquals(1, updates.size());
+            Assert.assertEquals(ModelManager.ModelManagerUpdateType.TILE_UPDATE, updates.get(0).getUpdateType());
+        } finally {
+            modelManager.unregisterObserver(observer);
+        }
+    }
+
+    public static void test_clearMapUndoRestoresCompressedSnapshot() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final String mapBefore = modelManager.getMapStringRepresentation();
+        modelManager.performCommand(modelManager.new ClearMapCommand());
+        Assert.assertFalse(mapBefore.equals(modelManager.getMapStringRepresentation()));
+        modelManager.undoLastCommand();
+        Assert.assertEquals(mapBefore, modelManager.getMapStringRepresentation());
+    }
+
+    public static void test_redoReplaysUndoneCommands() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        modelManager.clearCommandHistory();
+        final String mapBefore = modelManager.getMapStringRepresentation();
+        MacroCommand macroCommand = new MacroCommand();
+        modelManager.performCommand(macroCommand);
+        macroCommand.addCommand(modelManager.new SmartUpdateTileAtCommand(1, 1, 3));
+        macroCommand.addCommand(modelManager.new UpdateTileAtCommand(0, 0, 4));
+        modelManager.performCommand(modelManager.new UpdateMapSizeCommand(2, 2));
+        final String mapAfter = modelManager.getMapStringRepresentation();
+        modelManager.undoLastCommand();
+        modelManager.undoLastCommand();
+        Assert.assertEquals(mapBefore, modelManager.getMapStringRepresentation());
+        Assert.assertEquals(2, modelManager.getRedoHistorySize());
+        modelManager.redoLastCommand();
+        modelManager.redoLastCommand();
+        Assert.assertEquals(mapAfter, modelManager.getMapStringRepresentation());
+        Assert.assertEquals(0, modelManager.getRedoHistorySize());
+        modelManager.undoLastCommand();
+        modelManager.performCommand(modelManager.new ClearMapCommand());
+        Assert.assertEquals(0, modelManager.getRedoHistorySize());
+    }
+
+    public static void test_paintStrokeIsUndoneAndRedoneAsRuns() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        modelManager.performCommand(modelManager.new UpdateMapSizeCommand(100, 100));
+        modelManager.clearCommandHistory();
+        final String mapBefore = modelManager.getMapStringRepresentation();
+        MacroCommand stroke = new MacroCommand();
+        modelManager.performCommand(stroke);
+        ModelManager.PaintTilesCommand paintCommand = modelManager.new PaintTilesCommand();
+        stroke.addCommand(paintCommand);
+        for (int x = 0; x < 100; x++)
+            paintCommand.paintTileAt(x, 50, 7);
+        paintCommand.paintTileAt(99, 50, 7);
+        paintCommand.trimToSize();
+        final String mapAfter = modelManager.getMapStringRepresentation();
+        Assert.assertEquals(7, modelManager.getTileAt(42, 50));
+        Assert.assertTrue(modelManager.getCommandHistorySizeInBytes() < 100 * 32);
+        modelManager.undoLastCommand();
+        Assert.assertEquals(mapBefore, modelManager.getMapStringRepresentation());
+        modelManager.redoLastCommand();
+        Assert.assertEquals(mapAfter, modelManager.getMapStringRepresentation());
+    }
+
+    public static void test_redoGrowingMapRestoresSameTiles() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final String mapBefore = modelManager.getMapStringRepresentation();
+        modelManager.performCommand(modelManager.new UpdateMapSizeCommand(modelManager.getMapWidth() + 20, modelManager.getMapHeight() + 20));
+        final String mapAfter = modelManager.getMapStringRepresentation();
+        modelManager.undoLastCommand();
+        Assert.assertEquals(mapBefore, modelManager.getMapStringRepresentation());
+        modelManager.redoLastCommand();
+        Assert.assertEquals(mapAfter, modelManager.getMapStringRepresentation());
+    }
+
+    public static void test_redoClearingMapRestoresSameTiles() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        modelManager.performCommand(modelManager.new UpdateMapSizeCommand(20, 20));
+        modelManager.performCommand(modelManager.new ClearMapCommand());
+        final String mapAfter = modelManager.getMapStringRepresentation();
+        modelManager.undoLastCommand();
+        modelManager.redoLastCommand();
+        Assert.assertEquals(mapAfter, modelManager.getMapStringRepresentation());
+    }
+
+    public static void test_writeMapCancelledLeavesNoFile() throws IOException {
+        ModelManager modelManager = ModelManager.getInstance();
+        final long[] lastProgress = new long[2];
+        TileGrid tiles = modelManager.readMap("test_resources/littleMap.json", new MapProgressListener() {
+            @Override
+            public void progressChanged(long completed, long total) {
+                lastProgress[0] = completed;
+                lastProgress[1] = total;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        });
+        Assert.assertEquals(tiles.getWidth(), lastProgress[0]);
+        Assert.assertEquals(tiles.getWidth(), lastProgress[1]);
+        File file = File.createTempFile("cancelledMap", ".json");
+        file.delete();
+        try {
+            modelManager.writeMap(tiles, file, new MapProgressListener() {
+                @Override
+                public void progressChanged(long completed, long total) { }
+
+                @Override
+                public boolean isCancelled() {
+                    return true;
+                }
+            });
+            fail();
+        } catch (CancellationException e) { }
+        Assert.assertFalse(file.exists());
+        Assert.assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+    }
+
+    public static void test_mappedMapStaysMappedAfterResizeAndClear() throws IOException {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final int width = modelManager.getMapWidth();
+        final int height = modelManager.getMapHeight();
+        File file = File.createTempFile("mappedMap", ".mmap");
+        File copyFile = File.createTempFile("mappedMapCopy", ".mmap");
+        try {
+            modelManager.saveMap(file);
+            final String mapBefore = modelManager.getMapStringRepresentation();
+            modelManager.performCommand(modelManager.new UpdateMapSizeCommand(width + 2, height + 1));
+            Assert.assertEquals(16 + (width + 2) * (height + 1) * 2, file.length());
+            modelManager.undoLastCommand();
+            Assert.assertEquals(16 + width * height * 2, file.length());
+            Assert.assertEquals(mapBefore, modelManager.getMapStringRepresentation());
+            modelManager.performCommand(modelManager.new ClearMapCommand());
+            TileGrid mappedTiles = modelManager.readMap(file.getPath(), null);
+            try {
+                for (int i = 0; i < width; i++)
+                    for (int j = 0; j < height; j++)
+                        Assert.assertEquals(modelManager.getTileAt(i, j), mappedTiles.getTileAt(i, j));
+            } finally {
+                ((MappedTileGrid) mappedTiles).close();
+            }
+            modelManager.saveMap(file);
+            Assert.assertEquals(file.getAbsolutePath(), modelManager.getMapAbsolutePath());
+
+            TileGrid tilesForSaving = modelManager.getTilesForSaving();
+            Assert.assertTrue(tilesForSaving instanceof MappedTileGrid);
+            final long mapModificationCount = modelManager.getMapModificationCount();
+            modelManager.writeMap(tilesForSaving, copyFile, null);
+            modelManager.performCommand(modelManager.new UpdateTileAtCommand(0, 0, 9));
+            Assert.assertFalse(modelManager.setSavedMapFile(copyFile, mapModificationCount));
+            Assert.assertEquals(file.getAbsolutePath(), modelManager.getMapAbsolutePath());
+        } finally {
+            modelManager.openMapFromJson("test_resources/littleMap.json");
+            file.delete();
+            copyFile.delete();
+        }
+    }
+
+    public static void test_failedSaveKeepsMapFile() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final String mapPath = modelManager.getMapAbsolutePath();
+        try {
+            modelManager.saveMapAsJson(new File("test_resources" + File.separator + "noSuchDirectory" + File.separator + "map.json"));
+            fail();
+        } catch (RuntimeException e) { }
+        Assert.assertEquals(mapPath, modelManager.getMapAbsolutePath());
+    }
+
     public static void test_noTileTypesException() {
         try {
             ModelManager.createModelManagerTestInstance("tileTypes_empty.json");
             fail();
         } catch (RuntimeException e) { }
     }
+
+    public static void test_applyNewConfigKeepsCompatibleMap() {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager.openMapFromJson("test_resources/littleMap.json");
+        final String mapRepresentation = modelManager.getMapStringRepresentation();
+        final String mapPath = modelManager.getMapAbsolutePath();
+        modelManager.applyNewConfig(modelManager.getCurrentConfig());
+        ModelManager newModelManager = ModelManager.getInstance();
+        Assert.assertNotSame(modelManager, newModelManager);
+        Assert.assertEquals(mapRepresentation, newModelManager.getMapStringRepresentation());
+        Assert.assertEquals(mapPath, newModelManager.getMapAbsolutePath());
+        Assert.assertSame(modelManager.getTileAdjacencyMatrix(), newModelManager.getTileAdjacencyMatrix());
+    }
 }
@@ -0,0 +1,46 @@
+package editor.test;
+
+import editor.gui.RepaintScheduler;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+public class RepaintSchedulerTests extends TestCase {
+    public static void test_adjacentTilesAreMerged() {
+        RepaintScheduler scheduler = new RepaintScheduler(new JPanel(), 1);
+        for (int k = 0; k < 10; k++)
+            scheduler.addDirtyRegion(k * 16, 32, 16, 16);
+        List<Rectangle> dirtyRegions = scheduler.getDirtyRegions();
+        Assert.assertEquals(1, dirtyRegions.size());
+        Assert.assertEquals(new Rectangle(0, 32, 160, 16), dirtyRegions.get(0));
+        scheduler.clear();
+    }
+
+    public static void test_distantTilesAreKeptApart() {
+        RepaintScheduler scheduler = new RepaintScheduler(new JPanel(), 1);
+        scheduler.addDirtyRegion(0, 0, 16, 16);
+        scheduler.addDirtyRegion(1600, 1600, 16, 16);
+        scheduler.addDirtyRegion(0, 0, 16, 16);
+        Assert.assertEquals(2, scheduler.getDirtyRegions().size());
+        scheduler.flush();
+        Assert.assertTrue(scheduler.getDirtyRegions().isEmpty());
+    }
+
+    public static void test_dirtyRegionCountIsBounded() {
+        RepaintScheduler scheduler = new RepaintScheduler(new JPanel(), 1);
+        for (int k = 0; k < 100; k++)
+            scheduler.addDirtyRegion(k * 32, k * 32, 16, 16);
+        List<Rectangle> dirtyRegions = scheduler.getDirtyRegions();
+        Assert.assertTrue(dirtyRegions.size() <= 32);
+        for (int k = 0; k < 100; k++) {
+            boolean isCovered = false;
+            for (Rectangle dirtyRegion : dirtyRegions)
+                isCovered |= dirtyRegion.contains(new Rectangle(k * 32, k * 32, 16, 16));
+            Assert.assertTrue(isCovered);
+        }
+        scheduler.clear();
+    }
+}
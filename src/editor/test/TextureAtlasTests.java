@@ -0,0 +1,50 @@
+package editor.test;
+
+import editor.service.TextureAtlas;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TextureAtlasTests extends TestCase {
+    private static final String IMAGE_DIRECTORY = "configurations" + File.separator + "config1";
+
+    public void test_atlasServesEveryTextureFromItsOwnRectangle() throws IOException {
+        Map<Integer, String> textureFileNames = new HashMap<Integer, String>();
+        textureFileNames.put(1, "dirt1.png");
+        textureFileNames.put(2, "bunny.png");
+        textureFileNames.put(3, "dirt1.png");
+        textureFileNames.put(4, "missing_texture.png");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TextureAtlas atlas;
+        try {
+            atlas = TextureAtlas.build(IMAGE_DIRECTORY, textureFileNames, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(atlas.getBounds(1), atlas.getBounds(3));
+        Assert.assertFalse(atlas.getBounds(1).intersects(atlas.getBounds(2)));
+        Assert.assertFalse(atlas.hasTexture(4));
+        Assert.assertNull(atlas.getTexture(4));
+        Assert.assertNull(atlas.getTexture(5));
+
+        BufferedImage expected = ImageIO.read(new File(IMAGE_DIRECTORY, "bunny.png"));
+        BufferedImage actual = atlas.getTexture(2);
+        Rectangle bounds = atlas.getBounds(2);
+        Assert.assertEquals(expected.getWidth(), bounds.width);
+        Assert.assertEquals(expected.getHeight(), bounds.height);
+        for (int x = 0; x < expected.getWidth(); x++)
+            for (int y = 0; y < expected.getHeight(); y++)
+                Assert.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+        Assert.assertEquals(32, atlas.getIcon(2, 32).getIconWidth());
+    }
+}
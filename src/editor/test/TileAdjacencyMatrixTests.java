@@ -0,0 +1,57 @@
+package editor.test;
+
+import editor.model.TileAdjacencyMatrix;
+import editor.model.TileType;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TileAdjacencyMatrixTests extends TestCase {
+    private TileType tileType1, tileType2, tileType3;
+    private TileAdjacencyMatrix matrix;
+
+    @Override
+    public void setUp() {
+        tileType1 = new TileType(10, "TILE_TYPE_1", "tileType1.png", new ArrayList<String>());
+        tileType2 = new TileType(20, "TILE_TYPE_2", "tileType2.png", new ArrayList<String>());
+        tileType3 = new TileType(30, "TILE_TYPE_3", "tileType3.png", new ArrayList<String>());
+        tileType1.setNeighbourMaterial(TileType.Side.WSW, "GRASS");
+        tileType1.setNeighbourMaterial(TileType.Side.WNW, "GRASS");
+        tileType2.setNeighbourMaterial(TileType.Side.ESE, "GRASS");
+        tileType2.setNeighbourMaterial(TileType.Side.ENE, "GRASS");
+        tileType3.setNeighbourMaterial(TileType.Side.ESE, "GRASS");
+        tileType3.setNeighbourMaterial(TileType.Side.ENE, "DIRT");
+        List<TileType> tileTypes = new ArrayList<TileType>();
+        tileTypes.add(tileType1);
+        tileTypes.add(tileType2);
+        tileTypes.add(tileType3);
+        matrix = new TileAdjacencyMatrix(tileTypes);
+    }
+
+    public void test_indexOf() {
+        Assert.assertEquals(0, matrix.indexOf(10));
+        Assert.assertEquals(2, matrix.indexOf(30));
+        Assert.assertEquals(-1, matrix.indexOf(15));
+        Assert.assertEquals(-1, matrix.indexOf(100));
+    }
+
+    public void test_isNeighbourTo() {
+        Assert.assertTrue(matrix.isNeighbourTo(0, 1, TileType.Side.WSW, TileType.Side.WNW));
+        Assert.assertFalse(matrix.isNeighbourTo(0, 2, TileType.Side.WSW, TileType.Side.WNW));
+        Assert.assertTrue(matrix.isNeighbourTo(1, 0, TileType.Side.ESE, TileType.Side.ENE));
+        Assert.assertFalse(matrix.isNeighbourTo(2, 0, TileType.Side.ESE, TileType.Side.ENE));
+        Assert.assertFalse(matrix.isNeighbourTo(0, 1, TileType.Side.NNW));
+    }
+
+    public void test_retainApplicable() {
+        long[] tiles = matrix.createTileSet();
+        matrix.fillWithAllTiles(tiles);
+        matrix.retainApplicable(0, TileType.Side.WSW, TileType.Side.WNW, tiles);
+        Assert.assertEquals(1, TileAdjacencyMatrix.firstIndexOf(tiles));
+        Assert.assertFalse(TileAdjacencyMatrix.contains(tiles, 2));
+        matrix.retainApplicable(0, TileType.Side.NNW, tiles);
+        Assert.assertEquals(-1, TileAdjacencyMatrix.firstIndexOf(tiles));
+    }
+}
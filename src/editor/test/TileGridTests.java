@@ -0,0 +1,79 @@
+package editor.test;
+
+import editor.model.ArrayTileGrid;
+import editor.model.MappedTileGrid;
+import editor.model.TileGrid;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+public class TileGridTests extends TestCase {
+    public void test_setAndGetTile() {
+        TileGrid grid = new ArrayTileGrid(3, 2);
+        grid.setTileAt(2, 1, 42);
+        grid.setTileAt(0, 0, 65535);
+        Assert.assertEquals(42, grid.getTileAt(2, 1));
+        Assert.assertEquals(65535, grid.getTileAt(0, 0));
+        Assert.assertEquals(0, grid.getTileAt(1, 1));
+    }
+
+    public void test_throwExceptionWhenTileIdIsOutOfRange() {
+        TileGrid grid = new ArrayTileGrid(1, 1);
+        try {
+            grid.setTileAt(0, 0, 65536);
+            fail();
+        }
+        catch (RuntimeException e) {
+            Assert.assertEquals("Tile ID=65536 is out of supported range [0..65535]", e.getMessage());
+        }
+    }
+
+    public void test_copyRegionTo() {
+        TileGrid source = new ArrayTileGrid(3, 3);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                source.setTileAt(i, j, i * 10 + j);
+        TileGrid destination = new ArrayTileGrid(4, 2);
+        source.copyRegionTo(destination, 1, 1, 2, 0, 2, 2);
+        Assert.assertEquals(11, destination.getTileAt(2, 0));
+        Assert.assertEquals(21, destination.getTileAt(3, 0));
+        Assert.assertEquals(12, destination.getTileAt(2, 1));
+        Assert.assertEquals(22, destination.getTileAt(3, 1));
+        Assert.assertEquals(0, destination.getTileAt(0, 0));
+    }
+
+    public void test_copyIsIndependent() {
+        TileGrid grid = new ArrayTileGrid(2, 2);
+        grid.setTileAt(1, 1, 5);
+        TileGrid copy = grid.copy();
+        grid.setTileAt(1, 1, 6);
+        Assert.assertEquals(5, copy.getTileAt(1, 1));
+    }
+
+    public void test_mappedTileGridPersistsTiles() throws IOException {
+        File file = File.createTempFile("mappedMap", MappedTileGrid.FILE_EXTENSION);
+        file.deleteOnExit();
+        MappedTileGrid grid = MappedTileGrid.create(file, 5, 4);
+        grid.setTileAt(4, 3, 1234);
+        grid.setTileAt(0, 1, 7);
+        grid.close();
+        MappedTileGrid reopenedGrid = MappedTileGrid.open(file);
+        Assert.assertEquals(5, reopenedGrid.getWidth());
+        Assert.assertEquals(4, reopenedGrid.getHeight());
+        Assert.assertEquals(1234, reopenedGrid.getTileAt(4, 3));
+        Assert.assertEquals(7, reopenedGrid.getTileAt(0, 1));
+        Assert.assertEquals(0, reopenedGrid.getTileAt(1, 1));
+        reopenedGrid.close();
+    }
+
+    public void test_throwExceptionWhenGridIsTooLargeForArray() {
+        try {
+            new ArrayTileGrid(70000, 70000);
+            fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("70000x70000"));
+        }
+    }
+}
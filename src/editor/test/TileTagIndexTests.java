@@ -0,0 +1,39 @@
+package editor.test;
+
+import editor.model.TileSet;
+import editor.model.TileTagIndex;
+import editor.model.TileType;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class TileTagIndexTests extends TestCase {
+    public static void test_basicAndRelatedTileTypes() {
+        TileTagIndex tagIndex = TileSet.loadFromJson("test_resources/tileTypes_small.json").getTagIndex();
+        List<TileType> basicTileTypes = tagIndex.getBasicTileTypes();
+        Assert.assertEquals(2, basicTileTypes.size());
+        Assert.assertEquals("[id: 1, name: GRASS1, texture: grass1.png ][GRASS, COMMON]", basicTileTypes.get(0).toString());
+        Assert.assertEquals("[id: 3, name: DIRT1, texture: dirt1.png ][DIRT, COMMON]", basicTileTypes.get(1).toString());
+        List<TileType> relatedTileTypes = tagIndex.getRelatedTileTypes(basicTileTypes.get(1));
+        Assert.assertEquals(2, relatedTileTypes.size());
+        Assert.assertEquals("[id: 4, name: DIRT2, texture: dirt2.png ][DIRT]", relatedTileTypes.get(1).toString());
+        Assert.assertSame(relatedTileTypes, tagIndex.getRelatedTileTypes(basicTileTypes.get(1)));
+    }
+
+    public static void test_tileTypesWithTagsIntersectsTags() {
+        TileTagIndex tagIndex = TileSet.loadFromJson("test_resources/tileTypes_medium.json").getTagIndex();
+        List<TileType> tileTypesWithTags = tagIndex.getTileTypesWithTags(Arrays.asList("GRASS", "DIRT"));
+        Assert.assertEquals(4, tileTypesWithTags.size());
+        Assert.assertEquals("[id: 5, name: DIRT_TO_GRASS_HOR1, texture: dirtToGrassHor1.png ][GRASS, DIRT]", tileTypesWithTags.get(0).toString());
+        Assert.assertEquals("[id: 8, name: GRASS_TO_DIRT_VER1, texture: grassToDirtVert1.png ][GRASS, DIRT]", tileTypesWithTags.get(3).toString());
+        Assert.assertSame(tileTypesWithTags, tagIndex.getTileTypesWithTags(Arrays.asList("DIRT", "GRASS")));
+        Assert.assertTrue(tagIndex.getTileTypesWithTags(Arrays.asList("GRASS", "UNKNOWN")).isEmpty());
+        Assert.assertTrue(tagIndex.getTileTypesWithTags(new ArrayList<String>()).isEmpty());
+        try {
+            tileTypesWithTags.clear();
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+}